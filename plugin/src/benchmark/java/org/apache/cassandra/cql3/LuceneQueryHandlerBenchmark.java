@@ -0,0 +1,98 @@
+/*
+ * Copyright 2015, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.cql3;
+
+import org.apache.cassandra.config.CFMetaData;
+import org.apache.cassandra.cql3.statements.SelectStatement;
+import org.apache.cassandra.cql3.statements.Selection;
+import org.apache.cassandra.db.marshal.UTF8Type;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the per-query cost of accessing the private {@link SelectStatement} internals used by {@link
+ * LuceneQueryHandler}. It compares looking up the reflective {@link Method} and {@link Field} on every query, invoking
+ * cached reflective objects, and the static method handles used by {@link LuceneQueryHandler}.
+ *
+ * Run it with {@code mvn -P benchmark test-compile exec:exec} from the plugin directory.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LuceneQueryHandlerBenchmark {
+
+    private static final Field CACHED_IS_COUNT;
+
+    static {
+        try {
+            CACHED_IS_COUNT = SelectStatement.Parameters.class.getDeclaredField("isCount");
+            CACHED_IS_COUNT.setAccessible(true);
+        } catch (NoSuchFieldException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private SelectStatement statement;
+
+    @Setup
+    public void setup() {
+        CFMetaData metadata = CFMetaData.denseCFMetaData("ks", "cf", UTF8Type.instance).rebuild();
+        SelectStatement.Parameters parameters = new SelectStatement.Parameters(
+                Collections.<ColumnIdentifier.Raw, Boolean>emptyMap(), false, true, null, false);
+        statement = new SelectStatement(metadata, 0, parameters, Selection.wildcard(metadata, false, null), null);
+    }
+
+    /** The original per-query lookup of the reflective {@link Method} and {@link Field}. */
+    @Benchmark
+    public boolean reflectionLookupPerQuery() throws Exception {
+        Method makeFilter = SelectStatement.class.getDeclaredMethod("makeFilter", QueryOptions.class, int.class);
+        makeFilter.setAccessible(true);
+        Field isCount = SelectStatement.Parameters.class.getDeclaredField("isCount");
+        isCount.setAccessible(true);
+        return (boolean) isCount.get(statement.parameters);
+    }
+
+    /** Reflective {@link Field} looked up once and invoked on every query. */
+    @Benchmark
+    public boolean cachedReflection() throws Exception {
+        return (boolean) CACHED_IS_COUNT.get(statement.parameters);
+    }
+
+    /** The static method handle used by {@link LuceneQueryHandler}. */
+    @Benchmark
+    public boolean methodHandle() {
+        return LuceneQueryHandler.isCount(statement);
+    }
+}
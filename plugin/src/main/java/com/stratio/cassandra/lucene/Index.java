@@ -130,6 +130,7 @@ public class Index extends PerRowSecondaryIndex {
 
             // Build row mapper
             rowService = RowService.build(baseCfs, columnDefinition);
+            LuceneQueryHandler.invalidatePlans();
 
             Log.info("Initialized index %s", logName);
         } catch (IndexException e) {
@@ -220,6 +221,7 @@ public class Index extends PerRowSecondaryIndex {
                 rowService.delete();
                 rowService = null;
             }
+            LuceneQueryHandler.invalidatePlans();
             Log.info("Removed Lucene index %s", logName);
         } catch (IndexException e) {
             throw e.log();
@@ -236,6 +238,7 @@ public class Index extends PerRowSecondaryIndex {
                 rowService.delete();
                 rowService = null;
             }
+            LuceneQueryHandler.invalidatePlans();
             Log.info("Invalidated Lucene index %s", logName);
         } catch (IndexException e) {
             throw e.log();
@@ -22,10 +22,13 @@ import com.stratio.cassandra.lucene.schema.SchemaBuilder;
 import org.apache.cassandra.config.CFMetaData;
 import org.apache.cassandra.config.ColumnDefinition;
 import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.lucene.store.MMapDirectory;
 
 import java.io.File;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -40,6 +43,9 @@ public class IndexConfig {
     public static final String REFRESH_SECONDS_OPTION = "refresh_seconds";
     public static final double DEFAULT_REFRESH_SECONDS = 60;
 
+    public static final String REFRESH_MIN_SECONDS_OPTION = "refresh_min_seconds";
+    public static final double DEFAULT_REFRESH_MIN_SECONDS = 0.1;
+
     public static final String DIRECTORY_PATH_OPTION = "directory_path";
     public static final String INDEXES_DIR_NAME = "lucene";
 
@@ -52,12 +58,86 @@ public class IndexConfig {
     public static final String MAX_CACHED_MB_OPTION = "max_cached_mb";
     public static final int DEFAULT_MAX_CACHED_MB = 30;
 
+    public static final String INDEXING_THREADS_OPTION = "indexing_threads";
+    public static final int DEFAULT_INDEXING_THREADS = 0;
+
+    public static final String INDEXING_QUEUES_SIZE_OPTION = "indexing_queues_size";
+    public static final int DEFAULT_INDEXING_QUEUES_SIZE = 50;
+
+    public static final String INDEXING_BATCH_SIZE_OPTION = "indexing_batch_size";
+    public static final int DEFAULT_INDEXING_BATCH_SIZE = 1000;
+
+    public static final String INDEXING_BATCH_MILLIS_OPTION = "indexing_batch_millis";
+    public static final int DEFAULT_INDEXING_BATCH_MILLIS = 0;
+
+    public static final String FETCH_THREADS_OPTION = "fetch_threads";
+    public static final int DEFAULT_FETCH_THREADS = 0;
+
+    public static final String FILTER_CACHE_MB_OPTION = "filter_cache_mb";
+    public static final int DEFAULT_FILTER_CACHE_MB = 0;
+
+    public static final String DIRECTORY_TYPE_OPTION = "directory_type";
+    public static final String DEFAULT_DIRECTORY_TYPE = "auto";
+    public static final List<String> DIRECTORY_TYPES = Arrays.asList("auto", "mmap", "niofs", "simplefs");
+
+    public static final String MMAP_CHUNK_MB_OPTION = "mmap_chunk_mb";
+    public static final int DEFAULT_MMAP_CHUNK_MB = MMapDirectory.DEFAULT_MAX_CHUNK_SIZE >> 20;
+
+    public static final String MERGE_SEGMENTS_PER_TIER_OPTION = "merge_segments_per_tier";
+    public static final double DEFAULT_MERGE_SEGMENTS_PER_TIER = 10.0;
+
+    public static final String MERGE_MAX_SEGMENT_MB_OPTION = "merge_max_segment_mb";
+    public static final int DEFAULT_MERGE_MAX_SEGMENT_MB = 5120;
+
+    public static final String MERGE_DELETES_PCT_ALLOWED_OPTION = "merge_deletes_pct_allowed";
+    public static final double DEFAULT_MERGE_DELETES_PCT_ALLOWED = 10.0;
+
+    public static final String MERGE_FLOOR_SEGMENT_MB_OPTION = "merge_floor_segment_mb";
+    public static final double DEFAULT_MERGE_FLOOR_SEGMENT_MB = 2.0;
+
+    public static final String MERGE_THREADS_OPTION = "merge_threads";
+    public static final int DEFAULT_MERGE_THREADS = 0;
+
+    public static final String MERGE_MAX_COUNT_OPTION = "merge_max_count";
+    public static final int DEFAULT_MERGE_MAX_COUNT = 0;
+
+    public static final String MERGE_MB_PER_SEC_OPTION = "merge_mb_per_sec";
+    public static final double DEFAULT_MERGE_MB_PER_SEC = 0.0;
+
+    public static final String COMPOUND_FILE_OPTION = "compound_file";
+    public static final CompoundFilePolicy DEFAULT_COMPOUND_FILE = CompoundFilePolicy.AUTO;
+
+    public static final String COMPOUND_FILE_RATIO_OPTION = "compound_file_ratio";
+    public static final double DEFAULT_COMPOUND_FILE_RATIO = 0.1;
+
+    public static final String COMPOUND_FILE_MAX_SEGMENT_MB_OPTION = "compound_file_max_segment_mb";
+    public static final int DEFAULT_COMPOUND_FILE_MAX_SEGMENT_MB = 0;
+
     private final Schema schema;
     private final double refreshSeconds;
+    private final double refreshMinSeconds;
     private final Path path;
     private final int ramBufferMB;
     private final int maxMergeMB;
     private final int maxCachedMB;
+    private final int indexingThreads;
+    private final int indexingQueuesSize;
+    private final int indexingBatchSize;
+    private final int indexingBatchMillis;
+    private final int fetchThreads;
+    private final int filterCacheMB;
+    private final String directoryType;
+    private final int mmapChunkMB;
+    private final double mergeSegmentsPerTier;
+    private final int mergeMaxSegmentMB;
+    private final double mergeDeletesPctAllowed;
+    private final double mergeFloorSegmentMB;
+    private final int mergeThreads;
+    private final int mergeMaxCount;
+    private final double mergeMBPerSec;
+    private final CompoundFilePolicy compoundFile;
+    private final double compoundFileRatio;
+    private final int compoundFileMaxSegmentMB;
 
     /**
      * Builds a new {@link IndexConfig} for the column family defined by the specified metadata using the specified
@@ -68,9 +148,36 @@ public class IndexConfig {
      */
     public IndexConfig(CFMetaData metadata, ColumnDefinition columnDefinition) {
         refreshSeconds = parseRefresh(columnDefinition.getIndexOptions());
+        refreshMinSeconds = parseRefreshMin(columnDefinition.getIndexOptions(), refreshSeconds);
         ramBufferMB = parseRamBufferMB(columnDefinition.getIndexOptions());
         maxMergeMB = parseMaxMergeMB(columnDefinition.getIndexOptions());
         maxCachedMB = parseMaxCachedMB(columnDefinition.getIndexOptions());
+        indexingThreads = parseIndexingThreads(columnDefinition.getIndexOptions());
+        indexingQueuesSize = parseIndexingQueuesSize(columnDefinition.getIndexOptions());
+        indexingBatchSize = parseIndexingBatchSize(columnDefinition.getIndexOptions());
+        indexingBatchMillis = parseIndexingBatchMillis(columnDefinition.getIndexOptions());
+        fetchThreads = parseFetchThreads(columnDefinition.getIndexOptions());
+        filterCacheMB = parseFilterCacheMB(columnDefinition.getIndexOptions());
+        directoryType = parseDirectoryType(columnDefinition.getIndexOptions());
+        mmapChunkMB = parseMmapChunkMB(columnDefinition.getIndexOptions());
+        mergeSegmentsPerTier = parseMergeSegmentsPerTier(columnDefinition.getIndexOptions());
+        mergeMaxSegmentMB = parseMergeMaxSegmentMB(columnDefinition.getIndexOptions());
+        mergeDeletesPctAllowed = parseMergeDeletesPctAllowed(columnDefinition.getIndexOptions());
+        mergeFloorSegmentMB = parseMergeFloorSegmentMB(columnDefinition.getIndexOptions());
+        mergeThreads = parseMergeThreads(columnDefinition.getIndexOptions());
+        mergeMaxCount = parseMergeMaxCount(columnDefinition.getIndexOptions());
+        mergeMBPerSec = parseMergeMBPerSec(columnDefinition.getIndexOptions());
+        compoundFile = parseCompoundFile(columnDefinition.getIndexOptions());
+        compoundFileRatio = parseCompoundFileRatio(columnDefinition.getIndexOptions());
+        compoundFileMaxSegmentMB = parseCompoundFileMaxSegmentMB(columnDefinition.getIndexOptions());
+        if (mergeMaxCount > 0 && mergeThreads == 0) {
+            throw new IndexException("'%s' requires '%s'", MERGE_MAX_COUNT_OPTION, MERGE_THREADS_OPTION);
+        }
+        if (mergeMaxCount > 0 && mergeMaxCount < mergeThreads) {
+            throw new IndexException("'%s' must be greater or equals than '%s'",
+                                     MERGE_MAX_COUNT_OPTION,
+                                     MERGE_THREADS_OPTION);
+        }
         schema = parseSchema(columnDefinition.getIndexOptions(), metadata);
         path = parsePath(columnDefinition.getIndexOptions(), metadata);
     }
@@ -103,6 +210,16 @@ public class IndexConfig {
         return refreshSeconds;
     }
 
+    /**
+     * Returns the min number of seconds between index readers refreshes when there are searches waiting for recent
+     * writes to be visible.
+     *
+     * @return The min number of seconds between index readers refreshes.
+     */
+    public double getRefreshMinSeconds() {
+        return refreshMinSeconds;
+    }
+
     /**
      * Returns the size of the Lucene index writer write buffer. Its content will be committed to disk when full.
      *
@@ -120,6 +237,179 @@ public class IndexConfig {
         return maxCachedMB;
     }
 
+    /**
+     * Returns the number of asynchronous indexing threads, where {@code 0} means synchronous indexing.
+     *
+     * @return The number of asynchronous indexing threads.
+     */
+    public int getIndexingThreads() {
+        return indexingThreads;
+    }
+
+    /**
+     * Returns the max number of queued operations per indexing thread before blocking the writers.
+     *
+     * @return The max number of queued operations per indexing thread.
+     */
+    public int getIndexingQueuesSize() {
+        return indexingQueuesSize;
+    }
+
+    /**
+     * Returns the max number of coalesced {@link org.apache.lucene.document.Document}s per indexing thread before
+     * flushing them to the index writer.
+     *
+     * @return The max number of coalesced documents per indexing batch.
+     */
+    public int getIndexingBatchSize() {
+        return indexingBatchSize;
+    }
+
+    /**
+     * Returns the max number of milliseconds that an indexing thread waits for more writes to coalesce before flushing
+     * them to the index writer, where {@code 0} means flushing as soon as its queue is empty.
+     *
+     * @return The max number of milliseconds to wait for more writes to coalesce.
+     */
+    public int getIndexingBatchMillis() {
+        return indexingBatchMillis;
+    }
+
+    /**
+     * Returns the number of threads used for collecting the rows found by searches from Cassandra, where {@code 0}
+     * means sequential collection in the searching thread.
+     *
+     * @return The number of row fetching threads.
+     */
+    public int getFetchThreads() {
+        return fetchThreads;
+    }
+
+    /**
+     * Returns the max size in MB of the cache of search filters matching documents, where {@code 0} means no caching.
+     *
+     * @return The max size in MB of the filter cache.
+     */
+    public int getFilterCacheMB() {
+        return filterCacheMB;
+    }
+
+    /**
+     * Returns the type of Lucene directory to be used for storing the index files. It can be {@code mmap}, {@code
+     * niofs}, {@code simplefs} or {@code auto}, which means choosing the best one for the current platform.
+     *
+     * @return The type of Lucene directory.
+     */
+    public String getDirectoryType() {
+        return directoryType;
+    }
+
+    /**
+     * Returns the max size in MB of the chunks in which the index files are memory mapped when using a {@code mmap}
+     * directory. Lower values reduce the virtual address space fragmentation.
+     *
+     * @return The max size in MB of the memory mapped chunks.
+     */
+    public int getMmapChunkMB() {
+        return mmapChunkMB;
+    }
+
+    /**
+     * Returns the allowed number of segments per tier in the index merge policy. Lower values mean more merging but
+     * fewer segments to search.
+     *
+     * @return The allowed number of segments per tier.
+     */
+    public double getMergeSegmentsPerTier() {
+        return mergeSegmentsPerTier;
+    }
+
+    /**
+     * Returns the max size in MB of the segments produced by regular merges.
+     *
+     * @return The max size in MB of the merged segments.
+     */
+    public int getMergeMaxSegmentMB() {
+        return mergeMaxSegmentMB;
+    }
+
+    /**
+     * Returns the max percentage of deleted documents allowed in a segment before it is merged by a force merge of
+     * deletes.
+     *
+     * @return The max percentage of deleted documents allowed in a segment.
+     */
+    public double getMergeDeletesPctAllowed() {
+        return mergeDeletesPctAllowed;
+    }
+
+    /**
+     * Returns the size in MB below which segments are considered equally sized by the index merge policy. This avoids
+     * lots of tiny segments.
+     *
+     * @return The size in MB of the merge policy floor segment.
+     */
+    public double getMergeFloorSegmentMB() {
+        return mergeFloorSegmentMB;
+    }
+
+    /**
+     * Returns the max number of concurrent merge threads, where {@code 0} means auto-detecting it.
+     *
+     * @return The max number of merge threads.
+     */
+    public int getMergeThreads() {
+        return mergeThreads;
+    }
+
+    /**
+     * Returns the max number of pending merges before stalling the indexing threads, where {@code 0} means the number
+     * of merge threads plus five, or auto-detecting it if the number of merge threads is not set either.
+     *
+     * @return The max number of pending merges.
+     */
+    public int getMergeMaxCount() {
+        return mergeMaxCount;
+    }
+
+    /**
+     * Returns the max write rate of merges in MB per second, where {@code 0} means not limiting it.
+     *
+     * @return The max write rate of merges in MB per second.
+     */
+    public double getMergeMBPerSec() {
+        return mergeMBPerSec;
+    }
+
+    /**
+     * Returns the compound file policy.
+     *
+     * @return The compound file policy.
+     */
+    public CompoundFilePolicy getCompoundFile() {
+        return compoundFile;
+    }
+
+    /**
+     * Returns the max size of a merged segment using compound file, as a fraction of the total index size, when the
+     * compound file policy is {@code auto}.
+     *
+     * @return The max compound file merged segment size relative to the index size.
+     */
+    public double getCompoundFileRatio() {
+        return compoundFileRatio;
+    }
+
+    /**
+     * Returns the max size in MB of a merged segment using compound file when the compound file policy is {@code auto},
+     * where {@code 0} means no limit.
+     *
+     * @return The max size in MB of a compound file merged segment.
+     */
+    public int getCompoundFileMaxSegmentMB() {
+        return compoundFileMaxSegmentMB;
+    }
+
     private static double parseRefresh(Map<String, String> options) {
         String refreshOption = options.get(REFRESH_SECONDS_OPTION);
         double refreshSeconds;
@@ -139,6 +429,29 @@ public class IndexConfig {
         }
     }
 
+    private static double parseRefreshMin(Map<String, String> options, double refreshSeconds) {
+        String refreshMinOption = options.get(REFRESH_MIN_SECONDS_OPTION);
+        double refreshMinSeconds;
+        if (refreshMinOption != null) {
+            try {
+                refreshMinSeconds = Double.parseDouble(refreshMinOption);
+            } catch (NumberFormatException e) {
+                throw new IndexException("'%s' must be a strictly positive double", REFRESH_MIN_SECONDS_OPTION);
+            }
+            if (refreshMinSeconds <= 0) {
+                throw new IndexException("'%s' must be strictly positive", REFRESH_MIN_SECONDS_OPTION);
+            }
+            if (refreshMinSeconds > refreshSeconds) {
+                throw new IndexException("'%s' must be lower or equals than '%s'",
+                                         REFRESH_MIN_SECONDS_OPTION,
+                                         REFRESH_SECONDS_OPTION);
+            }
+            return refreshMinSeconds;
+        } else {
+            return Math.min(DEFAULT_REFRESH_MIN_SECONDS, refreshSeconds);
+        }
+    }
+
     private static int parseRamBufferMB(Map<String, String> options) {
         String ramBufferSizeOption = options.get(RAM_BUFFER_MB_OPTION);
         int ramBufferMB;
@@ -193,6 +506,331 @@ public class IndexConfig {
         }
     }
 
+    private static int parseIndexingThreads(Map<String, String> options) {
+        String indexingThreadsOption = options.get(INDEXING_THREADS_OPTION);
+        int indexingThreads;
+        if (indexingThreadsOption != null) {
+            try {
+                indexingThreads = Integer.parseInt(indexingThreadsOption);
+            } catch (NumberFormatException e) {
+                throw new IndexException("'%s' must be a positive integer", INDEXING_THREADS_OPTION);
+            }
+            if (indexingThreads < 0) {
+                throw new IndexException("'%s' must be positive", INDEXING_THREADS_OPTION);
+            }
+            return indexingThreads;
+        } else {
+            return DEFAULT_INDEXING_THREADS;
+        }
+    }
+
+    private static int parseIndexingQueuesSize(Map<String, String> options) {
+        String indexingQueuesSizeOption = options.get(INDEXING_QUEUES_SIZE_OPTION);
+        int indexingQueuesSize;
+        if (indexingQueuesSizeOption != null) {
+            try {
+                indexingQueuesSize = Integer.parseInt(indexingQueuesSizeOption);
+            } catch (NumberFormatException e) {
+                throw new IndexException("'%s' must be a strictly positive integer", INDEXING_QUEUES_SIZE_OPTION);
+            }
+            if (indexingQueuesSize <= 0) {
+                throw new IndexException("'%s' must be strictly positive", INDEXING_QUEUES_SIZE_OPTION);
+            }
+            return indexingQueuesSize;
+        } else {
+            return DEFAULT_INDEXING_QUEUES_SIZE;
+        }
+    }
+
+    private static int parseIndexingBatchSize(Map<String, String> options) {
+        String indexingBatchSizeOption = options.get(INDEXING_BATCH_SIZE_OPTION);
+        int indexingBatchSize;
+        if (indexingBatchSizeOption != null) {
+            try {
+                indexingBatchSize = Integer.parseInt(indexingBatchSizeOption);
+            } catch (NumberFormatException e) {
+                throw new IndexException("'%s' must be a strictly positive integer", INDEXING_BATCH_SIZE_OPTION);
+            }
+            if (indexingBatchSize <= 0) {
+                throw new IndexException("'%s' must be strictly positive", INDEXING_BATCH_SIZE_OPTION);
+            }
+            return indexingBatchSize;
+        } else {
+            return DEFAULT_INDEXING_BATCH_SIZE;
+        }
+    }
+
+    private static int parseIndexingBatchMillis(Map<String, String> options) {
+        String indexingBatchMillisOption = options.get(INDEXING_BATCH_MILLIS_OPTION);
+        int indexingBatchMillis;
+        if (indexingBatchMillisOption != null) {
+            try {
+                indexingBatchMillis = Integer.parseInt(indexingBatchMillisOption);
+            } catch (NumberFormatException e) {
+                throw new IndexException("'%s' must be a positive integer", INDEXING_BATCH_MILLIS_OPTION);
+            }
+            if (indexingBatchMillis < 0) {
+                throw new IndexException("'%s' must be positive", INDEXING_BATCH_MILLIS_OPTION);
+            }
+            return indexingBatchMillis;
+        } else {
+            return DEFAULT_INDEXING_BATCH_MILLIS;
+        }
+    }
+
+    private static int parseFetchThreads(Map<String, String> options) {
+        String fetchThreadsOption = options.get(FETCH_THREADS_OPTION);
+        int fetchThreads;
+        if (fetchThreadsOption != null) {
+            try {
+                fetchThreads = Integer.parseInt(fetchThreadsOption);
+            } catch (NumberFormatException e) {
+                throw new IndexException("'%s' must be a positive integer", FETCH_THREADS_OPTION);
+            }
+            if (fetchThreads < 0) {
+                throw new IndexException("'%s' must be positive", FETCH_THREADS_OPTION);
+            }
+            return fetchThreads;
+        } else {
+            return DEFAULT_FETCH_THREADS;
+        }
+    }
+
+    private static int parseFilterCacheMB(Map<String, String> options) {
+        String filterCacheOption = options.get(FILTER_CACHE_MB_OPTION);
+        int filterCacheMB;
+        if (filterCacheOption != null) {
+            try {
+                filterCacheMB = Integer.parseInt(filterCacheOption);
+            } catch (NumberFormatException e) {
+                throw new IndexException("'%s' must be a positive integer", FILTER_CACHE_MB_OPTION);
+            }
+            if (filterCacheMB < 0) {
+                throw new IndexException("'%s' must be positive", FILTER_CACHE_MB_OPTION);
+            }
+            return filterCacheMB;
+        } else {
+            return DEFAULT_FILTER_CACHE_MB;
+        }
+    }
+
+    private static String parseDirectoryType(Map<String, String> options) {
+        String directoryTypeOption = options.get(DIRECTORY_TYPE_OPTION);
+        if (directoryTypeOption != null) {
+            String directoryType = directoryTypeOption.trim().toLowerCase();
+            if (!DIRECTORY_TYPES.contains(directoryType)) {
+                throw new IndexException("'%s' must be one of %s", DIRECTORY_TYPE_OPTION, DIRECTORY_TYPES);
+            }
+            return directoryType;
+        } else {
+            return DEFAULT_DIRECTORY_TYPE;
+        }
+    }
+
+    private static int parseMmapChunkMB(Map<String, String> options) {
+        String mmapChunkMBOption = options.get(MMAP_CHUNK_MB_OPTION);
+        int mmapChunkMB;
+        if (mmapChunkMBOption != null) {
+            try {
+                mmapChunkMB = Integer.parseInt(mmapChunkMBOption);
+            } catch (NumberFormatException e) {
+                throw new IndexException("'%s' must be a strictly positive integer", MMAP_CHUNK_MB_OPTION);
+            }
+            if (mmapChunkMB <= 0) {
+                throw new IndexException("'%s' must be strictly positive", MMAP_CHUNK_MB_OPTION);
+            }
+            if (mmapChunkMB > 1024) {
+                throw new IndexException("'%s' must be lower or equals than %s", MMAP_CHUNK_MB_OPTION, 1024);
+            }
+            return mmapChunkMB;
+        } else {
+            return DEFAULT_MMAP_CHUNK_MB;
+        }
+    }
+
+    private static double parseMergeSegmentsPerTier(Map<String, String> options) {
+        String mergeSegmentsPerTierOption = options.get(MERGE_SEGMENTS_PER_TIER_OPTION);
+        double mergeSegmentsPerTier;
+        if (mergeSegmentsPerTierOption != null) {
+            try {
+                mergeSegmentsPerTier = Double.parseDouble(mergeSegmentsPerTierOption);
+            } catch (NumberFormatException e) {
+                throw new IndexException("'%s' must be a positive double", MERGE_SEGMENTS_PER_TIER_OPTION);
+            }
+            if (mergeSegmentsPerTier < 2) {
+                throw new IndexException("'%s' must be greater or equals than %s", MERGE_SEGMENTS_PER_TIER_OPTION, 2);
+            }
+            return mergeSegmentsPerTier;
+        } else {
+            return DEFAULT_MERGE_SEGMENTS_PER_TIER;
+        }
+    }
+
+    private static int parseMergeMaxSegmentMB(Map<String, String> options) {
+        String mergeMaxSegmentMBOption = options.get(MERGE_MAX_SEGMENT_MB_OPTION);
+        int mergeMaxSegmentMB;
+        if (mergeMaxSegmentMBOption != null) {
+            try {
+                mergeMaxSegmentMB = Integer.parseInt(mergeMaxSegmentMBOption);
+            } catch (NumberFormatException e) {
+                throw new IndexException("'%s' must be a strictly positive integer", MERGE_MAX_SEGMENT_MB_OPTION);
+            }
+            if (mergeMaxSegmentMB <= 0) {
+                throw new IndexException("'%s' must be strictly positive", MERGE_MAX_SEGMENT_MB_OPTION);
+            }
+            return mergeMaxSegmentMB;
+        } else {
+            return DEFAULT_MERGE_MAX_SEGMENT_MB;
+        }
+    }
+
+    private static double parseMergeDeletesPctAllowed(Map<String, String> options) {
+        String mergeDeletesPctAllowedOption = options.get(MERGE_DELETES_PCT_ALLOWED_OPTION);
+        double mergeDeletesPctAllowed;
+        if (mergeDeletesPctAllowedOption != null) {
+            try {
+                mergeDeletesPctAllowed = Double.parseDouble(mergeDeletesPctAllowedOption);
+            } catch (NumberFormatException e) {
+                throw new IndexException("'%s' must be a positive double", MERGE_DELETES_PCT_ALLOWED_OPTION);
+            }
+            if (mergeDeletesPctAllowed < 0) {
+                throw new IndexException("'%s' must be positive", MERGE_DELETES_PCT_ALLOWED_OPTION);
+            }
+            if (mergeDeletesPctAllowed > 100) {
+                throw new IndexException("'%s' must be lower or equals than %s", MERGE_DELETES_PCT_ALLOWED_OPTION, 100);
+            }
+            return mergeDeletesPctAllowed;
+        } else {
+            return DEFAULT_MERGE_DELETES_PCT_ALLOWED;
+        }
+    }
+
+    private static double parseMergeFloorSegmentMB(Map<String, String> options) {
+        String mergeFloorSegmentMBOption = options.get(MERGE_FLOOR_SEGMENT_MB_OPTION);
+        double mergeFloorSegmentMB;
+        if (mergeFloorSegmentMBOption != null) {
+            try {
+                mergeFloorSegmentMB = Double.parseDouble(mergeFloorSegmentMBOption);
+            } catch (NumberFormatException e) {
+                throw new IndexException("'%s' must be a strictly positive double", MERGE_FLOOR_SEGMENT_MB_OPTION);
+            }
+            if (mergeFloorSegmentMB <= 0) {
+                throw new IndexException("'%s' must be strictly positive", MERGE_FLOOR_SEGMENT_MB_OPTION);
+            }
+            return mergeFloorSegmentMB;
+        } else {
+            return DEFAULT_MERGE_FLOOR_SEGMENT_MB;
+        }
+    }
+
+    private static int parseMergeThreads(Map<String, String> options) {
+        String mergeThreadsOption = options.get(MERGE_THREADS_OPTION);
+        int mergeThreads;
+        if (mergeThreadsOption != null) {
+            try {
+                mergeThreads = Integer.parseInt(mergeThreadsOption);
+            } catch (NumberFormatException e) {
+                throw new IndexException("'%s' must be a positive integer", MERGE_THREADS_OPTION);
+            }
+            if (mergeThreads < 0) {
+                throw new IndexException("'%s' must be positive", MERGE_THREADS_OPTION);
+            }
+            return mergeThreads;
+        } else {
+            return DEFAULT_MERGE_THREADS;
+        }
+    }
+
+    private static int parseMergeMaxCount(Map<String, String> options) {
+        String mergeMaxCountOption = options.get(MERGE_MAX_COUNT_OPTION);
+        int mergeMaxCount;
+        if (mergeMaxCountOption != null) {
+            try {
+                mergeMaxCount = Integer.parseInt(mergeMaxCountOption);
+            } catch (NumberFormatException e) {
+                throw new IndexException("'%s' must be a positive integer", MERGE_MAX_COUNT_OPTION);
+            }
+            if (mergeMaxCount < 0) {
+                throw new IndexException("'%s' must be positive", MERGE_MAX_COUNT_OPTION);
+            }
+            return mergeMaxCount;
+        } else {
+            return DEFAULT_MERGE_MAX_COUNT;
+        }
+    }
+
+    private static double parseMergeMBPerSec(Map<String, String> options) {
+        String mergeMBPerSecOption = options.get(MERGE_MB_PER_SEC_OPTION);
+        double mergeMBPerSec;
+        if (mergeMBPerSecOption != null) {
+            try {
+                mergeMBPerSec = Double.parseDouble(mergeMBPerSecOption);
+            } catch (NumberFormatException e) {
+                throw new IndexException("'%s' must be a positive double", MERGE_MB_PER_SEC_OPTION);
+            }
+            if (mergeMBPerSec < 0) {
+                throw new IndexException("'%s' must be positive", MERGE_MB_PER_SEC_OPTION);
+            }
+            return mergeMBPerSec;
+        } else {
+            return DEFAULT_MERGE_MB_PER_SEC;
+        }
+    }
+
+    private static CompoundFilePolicy parseCompoundFile(Map<String, String> options) {
+        String compoundFileOption = options.get(COMPOUND_FILE_OPTION);
+        if (compoundFileOption != null) {
+            try {
+                return CompoundFilePolicy.valueOf(compoundFileOption.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IndexException("'%s' must be one of %s",
+                                         COMPOUND_FILE_OPTION,
+                                         Arrays.toString(CompoundFilePolicy.values()).toLowerCase());
+            }
+        } else {
+            return DEFAULT_COMPOUND_FILE;
+        }
+    }
+
+    private static double parseCompoundFileRatio(Map<String, String> options) {
+        String compoundFileRatioOption = options.get(COMPOUND_FILE_RATIO_OPTION);
+        double compoundFileRatio;
+        if (compoundFileRatioOption != null) {
+            try {
+                compoundFileRatio = Double.parseDouble(compoundFileRatioOption);
+            } catch (NumberFormatException e) {
+                throw new IndexException("'%s' must be a positive double", COMPOUND_FILE_RATIO_OPTION);
+            }
+            if (compoundFileRatio < 0) {
+                throw new IndexException("'%s' must be positive", COMPOUND_FILE_RATIO_OPTION);
+            }
+            if (compoundFileRatio > 1) {
+                throw new IndexException("'%s' must be lower or equals than %s", COMPOUND_FILE_RATIO_OPTION, 1);
+            }
+            return compoundFileRatio;
+        } else {
+            return DEFAULT_COMPOUND_FILE_RATIO;
+        }
+    }
+
+    private static int parseCompoundFileMaxSegmentMB(Map<String, String> options) {
+        String compoundFileMaxSegmentMBOption = options.get(COMPOUND_FILE_MAX_SEGMENT_MB_OPTION);
+        int compoundFileMaxSegmentMB;
+        if (compoundFileMaxSegmentMBOption != null) {
+            try {
+                compoundFileMaxSegmentMB = Integer.parseInt(compoundFileMaxSegmentMBOption);
+            } catch (NumberFormatException e) {
+                throw new IndexException("'%s' must be a positive integer", COMPOUND_FILE_MAX_SEGMENT_MB_OPTION);
+            }
+            if (compoundFileMaxSegmentMB < 0) {
+                throw new IndexException("'%s' must be positive", COMPOUND_FILE_MAX_SEGMENT_MB_OPTION);
+            }
+            return compoundFileMaxSegmentMB;
+        } else {
+            return DEFAULT_COMPOUND_FILE_MAX_SEGMENT_MB;
+        }
+    }
+
     private static Schema parseSchema(Map<String, String> options, CFMetaData metadata) {
         String schemaOption = options.get(SCHEMA_OPTION);
         Schema schema;
@@ -227,16 +865,50 @@ public class IndexConfig {
         }
     }
 
+    /**
+     * The policies for writing index segments as compound files.
+     */
+    public enum CompoundFilePolicy {
+
+        /** Use compound files only for the segments under the compound file ratio and size limits. */
+        AUTO,
+
+        /** Always use compound files. */
+        ALWAYS,
+
+        /** Never use compound files. */
+        NEVER
+    }
+
     /** {@inheritDoc} */
     @Override
     public String toString() {
         return Objects.toStringHelper(this)
                       .add("schema", schema)
                       .add("refreshSeconds", refreshSeconds)
+                      .add("refreshMinSeconds", refreshMinSeconds)
                       .add("path", path)
                       .add("ramBufferMB", ramBufferMB)
                       .add("maxMergeMB", maxMergeMB)
                       .add("maxCachedMB", maxCachedMB)
+                      .add("indexingThreads", indexingThreads)
+                      .add("indexingQueuesSize", indexingQueuesSize)
+                      .add("indexingBatchSize", indexingBatchSize)
+                      .add("indexingBatchMillis", indexingBatchMillis)
+                      .add("fetchThreads", fetchThreads)
+                      .add("filterCacheMB", filterCacheMB)
+                      .add("directoryType", directoryType)
+                      .add("mmapChunkMB", mmapChunkMB)
+                      .add("mergeSegmentsPerTier", mergeSegmentsPerTier)
+                      .add("mergeMaxSegmentMB", mergeMaxSegmentMB)
+                      .add("mergeDeletesPctAllowed", mergeDeletesPctAllowed)
+                      .add("mergeFloorSegmentMB", mergeFloorSegmentMB)
+                      .add("mergeThreads", mergeThreads)
+                      .add("mergeMaxCount", mergeMaxCount)
+                      .add("mergeMBPerSec", mergeMBPerSec)
+                      .add("compoundFile", compoundFile)
+                      .add("compoundFileRatio", compoundFileRatio)
+                      .add("compoundFileMaxSegmentMB", compoundFileMaxSegmentMB)
                       .toString();
     }
 }
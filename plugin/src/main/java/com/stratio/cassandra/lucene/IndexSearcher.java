@@ -19,7 +19,6 @@ package com.stratio.cassandra.lucene;
 import com.google.common.base.Objects;
 import com.stratio.cassandra.lucene.schema.Schema;
 import com.stratio.cassandra.lucene.search.Search;
-import com.stratio.cassandra.lucene.search.SearchBuilder;
 import com.stratio.cassandra.lucene.service.RowKey;
 import com.stratio.cassandra.lucene.service.RowMapper;
 import com.stratio.cassandra.lucene.service.RowService;
@@ -28,18 +27,24 @@ import com.stratio.cassandra.lucene.util.TimeCounter;
 import org.apache.cassandra.db.DataRange;
 import org.apache.cassandra.db.IndexExpression;
 import org.apache.cassandra.db.Row;
+import org.apache.cassandra.db.RowPosition;
 import org.apache.cassandra.db.filter.ExtendedFilter;
 import org.apache.cassandra.db.index.SecondaryIndexManager;
 import org.apache.cassandra.db.index.SecondaryIndexSearcher;
 import org.apache.cassandra.db.marshal.UTF8Type;
+import org.apache.cassandra.dht.AbstractBounds;
 import org.apache.cassandra.exceptions.InvalidRequestException;
+import org.apache.cassandra.io.util.DataOutputBuffer;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.utils.ByteBufferUtil;
 
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
-import java.util.TreeSet;
 
 import static org.apache.cassandra.cql3.Operator.EQ;
 
@@ -53,6 +58,15 @@ public class IndexSearcher extends SecondaryIndexSearcher {
     /** The name of the {@link IndexExpression} containing the last search {@link RowKey}. */
     public final static ByteBuffer AFTER = UTF8Type.instance.fromString("search_after_doc");
 
+    /** The name of the {@link IndexExpression} requesting only the keys and scores of the found rows. */
+    public final static ByteBuffer KEYS_ONLY = UTF8Type.instance.fromString("search_keys_only");
+
+    /** The name of the {@link IndexExpression} containing the row ranges to be searched inside the data range. */
+    public final static ByteBuffer TOKEN_RANGES = UTF8Type.instance.fromString("search_token_ranges");
+
+    /** The serialization version of the token ranges. */
+    private static final int VERSION = MessagingService.VERSION_21;
+
     private final Index index;
     private final RowService rowService;
     private final Schema schema;
@@ -88,7 +102,16 @@ public class IndexSearcher extends SecondaryIndexSearcher {
             List<IndexExpression> clause = extendedFilter.getClause();
             List<IndexExpression> filteredExpressions = filteredExpressions(clause);
             Search search = search(clause);
-            return rowService.search(search, filteredExpressions, dataRange, limit, timestamp, after);
+            List<AbstractBounds<RowPosition>> ranges = ranges(clause);
+            boolean keysOnly = keysOnly(clause);
+            return rowService.search(search,
+                                     filteredExpressions,
+                                     dataRange,
+                                     ranges,
+                                     limit,
+                                     timestamp,
+                                     after,
+                                     keysOnly);
         } catch (IndexException e) {
             throw e.log();
         } catch (Exception e) {
@@ -126,8 +149,7 @@ public class IndexSearcher extends SecondaryIndexSearcher {
     @Override
     public void validate(IndexExpression indexExpression) throws InvalidRequestException {
         try {
-            String json = UTF8Type.instance.compose(indexExpression.value);
-            SearchBuilder.fromJson(json).build().validate(schema);
+            rowService.search(indexExpression.value).validate(schema);
         } catch (IndexException e) {
             throw new InvalidRequestException(e.getMessage());
         } catch (Exception e) {
@@ -147,8 +169,7 @@ public class IndexSearcher extends SecondaryIndexSearcher {
         if (indexedExpression == null) {
             throw new RuntimeException("There is no index expression in the clause");
         }
-        String json = UTF8Type.instance.compose(indexedExpression.value);
-        return SearchBuilder.fromJson(json).build();
+        return rowService.search(indexedExpression.value);
     }
 
     /**
@@ -177,13 +198,49 @@ public class IndexSearcher extends SecondaryIndexSearcher {
         List<IndexExpression> filteredExpressions = new ArrayList<>(clause.size());
         for (IndexExpression ie : clause) {
             ByteBuffer columnName = ie.column;
-            if (!indexedColumnName.equals(columnName) && !AFTER.equals(columnName)) {
+            if (!indexedColumnName.equals(columnName) &&
+                !AFTER.equals(columnName) &&
+                !KEYS_ONLY.equals(columnName) &&
+                !TOKEN_RANGES.equals(columnName)) {
                 filteredExpressions.add(ie);
             }
         }
         return filteredExpressions;
     }
 
+    /**
+     * Returns if the specified list of {@link IndexExpression}s requests only the keys and scores of the found rows.
+     *
+     * @param clause A list of {@link IndexExpression}s.
+     * @return {@code true} if only keys and scores are requested, {@code false} otherwise.
+     */
+    private boolean keysOnly(List<IndexExpression> clause) {
+        for (IndexExpression indexExpression : clause) {
+            if (KEYS_ONLY.equals(indexExpression.column)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns if the search defined by the specified list of {@link IndexExpression}s can be run in two phases: first
+     * collecting the keys and scores of the global top rows from all the ranges, and then reading only these rows. This
+     * is possible for relevance-only searches requiring a full scan, without additional filtering expressions, on tables
+     * without static columns.
+     *
+     * @param clause A list of {@link IndexExpression}s.
+     * @return {@code true} if the search can be run in two phases, {@code false} otherwise.
+     */
+    public boolean allowsTwoPhaseSearch(List<IndexExpression> clause) {
+        Search search = search(clause);
+        return search.requiresFullScan() &&
+               search.usesRelevance() &&
+               !search.usesSorting() &&
+               filteredExpressions(clause).isEmpty() &&
+               !index.getBaseCfs().metadata.hasStaticColumns();
+    }
+
     /** {@inheritDoc} */
     @Override
     public boolean requiresScanningAllRanges(List<IndexExpression> clause) {
@@ -200,16 +257,37 @@ public class IndexSearcher extends SecondaryIndexSearcher {
 
         // Remove duplicates and sort
         Search search = search(clause);
-        Comparator<Row> comparator = mapper().comparator(search);
-        TreeSet<Row> set = new TreeSet<>(comparator);
-        set.addAll(rows);
-        List<Row> result = new ArrayList<>(set);
+        List<Row> result = mapper().sort(search, rows, true);
 
-        String comparatorName = comparator.getClass().getSimpleName();
         int endSize = result.size();
         sortTime.stop();
 
-        Log.debug("Sorted %d rows to %d with comparator %s in %s\n", startSize, endSize, comparatorName, sortTime);
+        Log.debug("Sorted %d rows to %d in %s\n", startSize, endSize, sortTime);
+
+        return result;
+    }
+
+    /**
+     * Merges the specified per-range lists of {@link Row}s, each one resulting from running the search defined by the
+     * specified {@link IndexExpression}s against a token range. Duplicates are removed and the merge stops as soon as
+     * {@code limit} {@link Row}s have been collected.
+     *
+     * @param clause       A list of {@link IndexExpression}s.
+     * @param rowsPerRange The sorted {@link Row}s obtained for each range.
+     * @param limit        The max number of {@link Row}s to be returned.
+     * @return The merged and sorted {@link Row}s.
+     */
+    public List<Row> postReconciliationProcessing(List<IndexExpression> clause,
+                                                  List<List<Row>> rowsPerRange,
+                                                  int limit) {
+
+        TimeCounter mergeTime = TimeCounter.create().start();
+
+        Search search = search(clause);
+        List<Row> result = mapper().merge(search, rowsPerRange, limit);
+
+        mergeTime.stop();
+        Log.debug("Merged %d ranges to %d rows in %s\n", rowsPerRange.size(), result.size(), mergeTime);
 
         return result;
     }
@@ -241,6 +319,52 @@ public class IndexSearcher extends SecondaryIndexSearcher {
         return null;
     }
 
+    /**
+     * Returns the row ranges contained in the specified {@link IndexExpression}s, if any.
+     *
+     * @param expressions A list of {@link IndexExpression}s.
+     * @return The row ranges contained in the specified {@link IndexExpression}s, if any.
+     */
+    @SuppressWarnings("unchecked")
+    private List<AbstractBounds<RowPosition>> ranges(List<IndexExpression> expressions) {
+        for (IndexExpression indexExpression : expressions) {
+            if (TOKEN_RANGES.equals(indexExpression.column)) {
+                try {
+                    DataInput in = new DataInputStream(ByteBufferUtil.inputStream(indexExpression.value));
+                    int size = in.readInt();
+                    List<AbstractBounds<RowPosition>> ranges = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        ranges.add((AbstractBounds<RowPosition>) AbstractBounds.serializer.deserialize(in, VERSION));
+                    }
+                    return ranges;
+                } catch (IOException e) {
+                    throw new IndexException(e, "Error while reading token ranges");
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the {@link ByteBuffer} representation of the specified row ranges, to be sent in a {@link
+     * IndexExpression} named {@link #TOKEN_RANGES}.
+     *
+     * @param ranges A list of row ranges.
+     * @return The {@link ByteBuffer} representation of {@code ranges}.
+     */
+    public static ByteBuffer tokenRanges(List<? extends AbstractBounds<RowPosition>> ranges) {
+        try {
+            DataOutputBuffer out = new DataOutputBuffer();
+            out.writeInt(ranges.size());
+            for (AbstractBounds<RowPosition> range : ranges) {
+                AbstractBounds.serializer.serialize(range, out, VERSION);
+            }
+            return ByteBuffer.wrap(out.getData(), 0, out.getLength());
+        } catch (IOException e) {
+            throw new IndexException(e, "Error while writing token ranges");
+        }
+    }
+
     /**
      * Returns the used {@link RowMapper}.
      *
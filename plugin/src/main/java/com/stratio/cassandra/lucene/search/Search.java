@@ -33,6 +33,8 @@ public class Search {
 
     private static final boolean DEFAULT_FORCE_REFRESH = false;
 
+    private static final boolean DEFAULT_WAIT_WRITES = false;
+
     /** The {@link Condition} for querying, maybe {@code null} meaning no querying. */
     private final Condition queryCondition;
 
@@ -48,6 +50,9 @@ public class Search {
     /** If this search must refresh the index before reading it. */
     private final boolean refresh;
 
+    /** If this search must wait until all the previous index writes are visible before reading the index. */
+    private final boolean waitWrites;
+
     /**
      * Returns a new {@link Search} composed by the specified querying and filtering conditions.
      *
@@ -56,12 +61,14 @@ public class Search {
      * @param sort            The {@link Sort} for the query. Note that is the order in which the data will be read
      *                        before querying, not the order of the results after querying.
      * @param refresh         If this search must refresh the index before reading it.
+     * @param waitWrites      If this search must wait until all the previous index writes are visible.
      */
-    public Search(Condition queryCondition, Condition filterCondition, Sort sort, Boolean refresh) {
+    public Search(Condition queryCondition, Condition filterCondition, Sort sort, Boolean refresh, Boolean waitWrites) {
         this.queryCondition = queryCondition;
         this.filterCondition = filterCondition;
         this.sort = sort;
         this.refresh = refresh == null ? DEFAULT_FORCE_REFRESH : refresh;
+        this.waitWrites = waitWrites == null ? DEFAULT_WAIT_WRITES : waitWrites;
     }
 
     /**
@@ -118,6 +125,15 @@ public class Search {
         return refresh;
     }
 
+    /**
+     * Returns if this search needs to wait until all the previous index writes are visible before reading the index.
+     *
+     * @return {@code true} if this search needs to wait for the previous index writes, {@code false} otherwise.
+     */
+    public boolean waitWrites() {
+        return waitWrites;
+    }
+
     /**
      * Returns the Lucene {@link SortField}s represented by this using the specified {@link Schema}. Maybe {@code null}
      * meaning no sorting.
@@ -51,6 +51,10 @@ public class SearchBuilder implements Builder<Search> {
     @JsonProperty("refresh")
     private boolean refresh;
 
+    /** If this search must wait until all the previous index writes are visible before reading the index. */
+    @JsonProperty("wait_writes")
+    private boolean waitWrites;
+
     /**
      * Returns this builder with the specified querying condition.
      *
@@ -106,6 +110,17 @@ public class SearchBuilder implements Builder<Search> {
         return this;
     }
 
+    /**
+     * Sets if the {@link Search} to be built must wait until all the previous index writes are visible.
+     *
+     * @param waitWrites If the {@link Search} to be built must wait until all the previous index writes are visible.
+     * @return This builder with the specified writes waiting.
+     */
+    public SearchBuilder waitWrites(boolean waitWrites) {
+        this.waitWrites = waitWrites;
+        return this;
+    }
+
     /**
      * Returns the {@link Search} represented by this builder.
      *
@@ -115,7 +130,7 @@ public class SearchBuilder implements Builder<Search> {
         Condition query = queryBuilder == null ? null : queryBuilder.build();
         Condition filter = filterBuilder == null ? null : filterBuilder.build();
         Sort sort = sortBuilder == null ? null : sortBuilder.build();
-        return new Search(query, filter, sort, refresh);
+        return new Search(query, filter, sort, refresh, waitWrites);
     }
 
     /**
@@ -0,0 +1,368 @@
+/*
+ * Copyright 2015, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.cassandra.lucene.service;
+
+import org.apache.cassandra.db.composites.CellNameType;
+import org.apache.cassandra.db.composites.Composite;
+import org.apache.cassandra.db.marshal.AbstractType;
+import org.apache.cassandra.db.marshal.AsciiType;
+import org.apache.cassandra.db.marshal.BooleanType;
+import org.apache.cassandra.db.marshal.BytesType;
+import org.apache.cassandra.db.marshal.DoubleType;
+import org.apache.cassandra.db.marshal.FloatType;
+import org.apache.cassandra.db.marshal.Int32Type;
+import org.apache.cassandra.db.marshal.LongType;
+import org.apache.cassandra.db.marshal.ReversedType;
+import org.apache.cassandra.db.marshal.TimeUUIDType;
+import org.apache.cassandra.db.marshal.TimestampType;
+import org.apache.cassandra.db.marshal.UTF8Type;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermRangeQuery;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Order-preserving binary encoding of clustering keys, so the unsigned byte order of the encoded keys is the same as
+ * the order defined by the table {@link CellNameType}. This allows sorting by clustering key comparing doc values
+ * bytes, and finding clustering key ranges seeking in the terms dictionary.
+ *
+ * Each clustering column is encoded in a self-delimited way, so the concatenation of the encoded columns preserves the
+ * composite order. Empty values, which are always the smallest, are encoded as a single zero byte and non-empty values
+ * of fixed size types are preceded by a one byte. Variable length values are written escaping their zero bytes and
+ * followed by a two zero bytes terminator. Descending clustering columns are written complementing the bytes of the
+ * ascending encoding.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class ClusteringKeyEncoder {
+
+    private static final byte EMPTY = 0x00;
+    private static final byte NOT_EMPTY = 0x01;
+    private static final byte ESCAPE = 0x00;
+    private static final byte ESCAPED = (byte) 0xFF;
+
+    /** The encoders of each clustering column. */
+    private final List<ColumnEncoder> columnEncoders;
+
+    /** The name of the indexed field containing the encoded clustering keys. */
+    private final String field;
+
+    /**
+     * Builds a new {@link ClusteringKeyEncoder} for the specified clustering column encoders.
+     *
+     * @param columnEncoders The encoders of each clustering column.
+     * @param field          The name of the indexed field containing the encoded clustering keys.
+     */
+    private ClusteringKeyEncoder(List<ColumnEncoder> columnEncoders, String field) {
+        this.columnEncoders = columnEncoders;
+        this.field = field;
+    }
+
+    /**
+     * Returns a new {@link ClusteringKeyEncoder} for the clustering columns of the specified {@link CellNameType}, or
+     * {@code null} if any of the clustering column types is not supported. The clustering keys are assumed to be CQL3
+     * row markers, so they always have more components than any clustering prefix.
+     *
+     * @param type  The table {@link CellNameType}.
+     * @param field The name of the indexed field containing the encoded clustering keys.
+     * @return A new {@link ClusteringKeyEncoder}, or {@code null} if the clustering key type is not supported.
+     */
+    public static ClusteringKeyEncoder instance(CellNameType type, String field) {
+        int clusteringSize = type.clusteringPrefixSize();
+        if (type.isDense() || clusteringSize == 0) {
+            return null;
+        }
+        List<ColumnEncoder> columnEncoders = new ArrayList<>(clusteringSize);
+        for (int i = 0; i < clusteringSize; i++) {
+            ColumnEncoder columnEncoder = columnEncoder(type.subtype(i));
+            if (columnEncoder == null) {
+                return null;
+            }
+            columnEncoders.add(columnEncoder);
+        }
+        return new ClusteringKeyEncoder(columnEncoders, field);
+    }
+
+    /**
+     * Returns the {@link ColumnEncoder} for the specified clustering column type, or {@code null} if it is not
+     * supported.
+     *
+     * @param type A clustering column type.
+     * @return The {@link ColumnEncoder} for {@code type}, or {@code null} if it is not supported.
+     */
+    private static ColumnEncoder columnEncoder(AbstractType<?> type) {
+        if (type instanceof ReversedType) {
+            ColumnEncoder base = columnEncoder(((ReversedType<?>) type).baseType);
+            return base == null ? null : new ReversedEncoder(base);
+        } else if (type instanceof UTF8Type || type instanceof AsciiType || type instanceof BytesType) {
+            return new BytesEncoder();
+        } else if (type instanceof Int32Type || type instanceof LongType || type instanceof TimestampType) {
+            return new SignedEncoder();
+        } else if (type instanceof FloatType || type instanceof DoubleType) {
+            return new FloatingPointEncoder();
+        } else if (type instanceof BooleanType) {
+            return new BooleanEncoder();
+        } else if (type instanceof TimeUUIDType) {
+            return new TimeUUIDEncoder();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the order-preserving encoding of the clustering columns contained in the specified {@link Composite}.
+     * Only the clustering columns are encoded, so any trailing non-clustering component is ignored.
+     *
+     * @param composite A clustering key or clustering key prefix.
+     * @return The encoded clustering columns.
+     */
+    public BytesRef encode(Composite composite) {
+        BytesRefBuilder builder = new BytesRefBuilder();
+        int size = Math.min(composite.size(), columnEncoders.size());
+        for (int i = 0; i < size; i++) {
+            columnEncoders.get(i).encode(composite.get(i), builder);
+        }
+        return builder.toBytesRef();
+    }
+
+    /**
+     * Returns a Lucene {@link Query} retrieving the documents whose clustering key is between the two specified
+     * clustering key prefixes, or {@code null} if the bounds contain non-clustering components, which can't be
+     * represented as encoded ranges.
+     *
+     * @param start The start clustering key prefix, maybe {@code null} or empty meaning no lower limit.
+     * @param stop  The stop clustering key prefix, maybe {@code null} or empty meaning no upper limit.
+     * @return A range {@link Query} over the encoded clustering keys, or {@code null} if it can't be built.
+     */
+    public Query query(Composite start, Composite stop) {
+        if (!fits(start) || !fits(stop)) {
+            return null;
+        }
+
+        // Clustering keys have more components than any prefix, so they follow the prefix unless its EOC is END
+        BytesRef lower = null;
+        if (start != null && !start.isEmpty()) {
+            lower = encode(start);
+            if (start.eoc() == Composite.EOC.END) {
+                lower = successor(lower);
+                if (lower == null) {
+                    return new BooleanQuery(); // Nothing follows the start
+                }
+            }
+        }
+        BytesRef upper = null;
+        if (stop != null && !stop.isEmpty()) {
+            upper = encode(stop);
+            if (stop.eoc() == Composite.EOC.END) {
+                upper = successor(upper);
+            }
+        }
+        return new TermRangeQuery(field, lower, upper, true, false);
+    }
+
+    /**
+     * Returns if the specified clustering key prefix has no more components than clustering columns.
+     *
+     * @param composite A clustering key prefix, maybe {@code null}.
+     * @return {@code true} if {@code composite} can be encoded as a range bound, {@code false} otherwise.
+     */
+    private boolean fits(Composite composite) {
+        return composite == null || composite.size() <= columnEncoders.size();
+    }
+
+    /**
+     * Returns the smallest byte sequence greater than all the byte sequences starting with the specified one, or
+     * {@code null} if there is not such sequence.
+     *
+     * @param prefix A byte sequence.
+     * @return The successor of all the byte sequences starting with {@code prefix}, maybe {@code null}.
+     */
+    static BytesRef successor(BytesRef prefix) {
+        for (int i = prefix.length - 1; i >= 0; i--) {
+            int b = prefix.bytes[prefix.offset + i] & 0xFF;
+            if (b != 0xFF) {
+                byte[] bytes = new byte[i + 1];
+                System.arraycopy(prefix.bytes, prefix.offset, bytes, 0, i + 1);
+                bytes[i] = (byte) (b + 1);
+                return new BytesRef(bytes);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Order-preserving encoder of the values of a clustering column type.
+     */
+    private abstract static class ColumnEncoder {
+
+        /**
+         * Appends the self-delimited encoding of the specified value to the specified {@link BytesRefBuilder}.
+         *
+         * @param value   A serialized column value.
+         * @param builder The {@link BytesRefBuilder} where the encoded value is written.
+         */
+        abstract void encode(ByteBuffer value, BytesRefBuilder builder);
+    }
+
+    /**
+     * {@link ColumnEncoder} for types ordered by their unsigned bytes, such as {@code text} or {@code blob}.
+     */
+    private static class BytesEncoder extends ColumnEncoder {
+
+        /** {@inheritDoc} */
+        @Override
+        void encode(ByteBuffer value, BytesRefBuilder builder) {
+            for (int i = value.position(); i < value.limit(); i++) {
+                byte b = value.get(i);
+                builder.append(b);
+                if (b == ESCAPE) {
+                    builder.append(ESCAPED);
+                }
+            }
+            builder.append(ESCAPE);
+            builder.append(ESCAPE);
+        }
+    }
+
+    /**
+     * {@link ColumnEncoder} for big-endian two's complement integers, such as {@code int} or {@code bigint}.
+     */
+    private static class SignedEncoder extends ColumnEncoder {
+
+        /** {@inheritDoc} */
+        @Override
+        void encode(ByteBuffer value, BytesRefBuilder builder) {
+            if (!value.hasRemaining()) {
+                builder.append(EMPTY);
+                return;
+            }
+            builder.append(NOT_EMPTY);
+            builder.append((byte) (value.get(value.position()) ^ 0x80));
+            for (int i = value.position() + 1; i < value.limit(); i++) {
+                builder.append(value.get(i));
+            }
+        }
+    }
+
+    /**
+     * {@link ColumnEncoder} for IEEE 754 floating point numbers, such as {@code float} or {@code double}.
+     */
+    private static class FloatingPointEncoder extends ColumnEncoder {
+
+        /** {@inheritDoc} */
+        @Override
+        void encode(ByteBuffer value, BytesRefBuilder builder) {
+            if (!value.hasRemaining()) {
+                builder.append(EMPTY);
+                return;
+            }
+            builder.append(NOT_EMPTY);
+            long bits;
+            int size;
+            if (value.remaining() == 4) {
+                bits = Float.floatToIntBits(value.getFloat(value.position()));
+                size = 4;
+            } else {
+                bits = Double.doubleToLongBits(value.getDouble(value.position()));
+                size = 8;
+            }
+            long signBit = 1L << (size * 8 - 1);
+            bits = (bits & signBit) == 0 ? bits ^ signBit : ~bits;
+            for (int i = size - 1; i >= 0; i--) {
+                builder.append((byte) (bits >>> (i * 8)));
+            }
+        }
+    }
+
+    /**
+     * {@link ColumnEncoder} for {@code boolean} values.
+     */
+    private static class BooleanEncoder extends ColumnEncoder {
+
+        /** {@inheritDoc} */
+        @Override
+        void encode(ByteBuffer value, BytesRefBuilder builder) {
+            if (!value.hasRemaining()) {
+                builder.append(EMPTY);
+                return;
+            }
+            builder.append(NOT_EMPTY);
+            builder.append(value.get(value.position()) == 0 ? (byte) 0 : (byte) 1);
+        }
+    }
+
+    /**
+     * {@link ColumnEncoder} for {@code timeuuid} values, which are ordered by their timestamp and then by their signed
+     * bytes.
+     */
+    private static class TimeUUIDEncoder extends ColumnEncoder {
+
+        /** {@inheritDoc} */
+        @Override
+        void encode(ByteBuffer value, BytesRefBuilder builder) {
+            if (!value.hasRemaining()) {
+                builder.append(EMPTY);
+                return;
+            }
+            builder.append(NOT_EMPTY);
+            int p = value.position();
+            builder.append((byte) (value.get(p + 6) & 0x0F));
+            builder.append(value.get(p + 7));
+            builder.append(value.get(p + 4));
+            builder.append(value.get(p + 5));
+            for (int i = 0; i < 4; i++) {
+                builder.append(value.get(p + i));
+            }
+            for (int i = 0; i < 16; i++) {
+                builder.append((byte) (value.get(p + i) ^ 0x80));
+            }
+        }
+    }
+
+    /**
+     * {@link ColumnEncoder} for descending clustering columns. Empty values are still the smallest ones.
+     */
+    private static class ReversedEncoder extends ColumnEncoder {
+
+        /** The encoder of the ascending type. */
+        private final ColumnEncoder base;
+
+        ReversedEncoder(ColumnEncoder base) {
+            this.base = base;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        void encode(ByteBuffer value, BytesRefBuilder builder) {
+            if (!value.hasRemaining()) {
+                builder.append(EMPTY);
+                return;
+            }
+            builder.append(NOT_EMPTY);
+            int start = builder.length();
+            base.encode(value, builder);
+            byte[] bytes = builder.bytes();
+            for (int i = start; i < builder.length(); i++) {
+                bytes[i] = (byte) ~bytes[i];
+            }
+        }
+    }
+}
@@ -33,7 +33,7 @@ import org.apache.cassandra.db.composites.Composite;
 import org.apache.cassandra.db.filter.ColumnSlice;
 import org.apache.cassandra.db.marshal.AbstractType;
 import org.apache.lucene.document.Document;
-import org.apache.lucene.document.Field;
+import org.apache.lucene.document.Field.Store;
 import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.search.FieldComparator;
@@ -63,6 +63,9 @@ public class ClusteringKeyMapper {
     /** The Lucene field name. */
     public static final String FIELD_NAME = "_clustering_key";
 
+    /** The Lucene field name for the binary comparable clustering key. */
+    public static final String ORDER_FIELD_NAME = "_clustering_key_order";
+
     /** The column family meta data. */
     private final CFMetaData metadata;
 
@@ -72,6 +75,9 @@ public class ClusteringKeyMapper {
     /** The type of the clustering key, which is the type of the column names. */
     private final CellNameType cellNameType;
 
+    /** The binary comparable clustering key encoder, {@code null} if the clustering key type is not supported. */
+    private final ClusteringKeyEncoder encoder;
+
     /**
      * Returns a new {@code ClusteringKeyMapper} according to the specified column family meta data.
      *
@@ -82,6 +88,7 @@ public class ClusteringKeyMapper {
         this.metadata = metadata;
         this.schema = schema;
         cellNameType = metadata.comparator;
+        encoder = ClusteringKeyEncoder.instance(cellNameType, ORDER_FIELD_NAME);
     }
 
     /**
@@ -111,10 +118,14 @@ public class ClusteringKeyMapper {
      * @param cellName A cell name containing the clustering key to be added.
      */
     public void addFields(Document document, CellName cellName) {
-        String serializedKey = ByteBufferUtils.toString(cellName.toByteBuffer());
-        BytesRef bytesRef = new BytesRef(serializedKey);
-        document.add(new StringField(FIELD_NAME, serializedKey, Field.Store.YES));
+        BytesRef bytesRef = ByteBufferUtils.bytesRef(cellName.toByteBuffer());
+        document.add(new StringField(FIELD_NAME, bytesRef, Store.YES));
         document.add(new SortedDocValuesField(FIELD_NAME, bytesRef));
+        if (encoder != null) {
+            BytesRef encoded = encoder.encode(cellName);
+            document.add(new StringField(ORDER_FIELD_NAME, encoded, Store.NO));
+            document.add(new SortedDocValuesField(ORDER_FIELD_NAME, encoded));
+        }
     }
 
     /**
@@ -167,9 +178,8 @@ public class ClusteringKeyMapper {
      * @return The clustering key contained in the specified {@link CellName}.
      */
     public final CellName clusteringKey(Document document) {
-        String string = document.get(FIELD_NAME);
-        ByteBuffer bb = ByteBufferUtils.fromString(string);
-        return cellNameType.cellFromByteBuffer(bb);
+        BytesRef bytesRef = document.getBinaryValue(FIELD_NAME);
+        return clusteringKey(bytesRef);
     }
 
     /**
@@ -179,8 +189,7 @@ public class ClusteringKeyMapper {
      * @return The clustering key contained in the specified Lucene field value.
      */
     public final CellName clusteringKey(BytesRef bytesRef) {
-        String string = bytesRef.utf8ToString();
-        ByteBuffer bb = ByteBufferUtils.fromString(string);
+        ByteBuffer bb = ByteBufferUtils.byteBuffer(bytesRef);
         return cellNameType.cellFromByteBuffer(bb);
     }
 
@@ -316,6 +325,9 @@ public class ClusteringKeyMapper {
      * @return A Lucene {@link SortField} array for sorting documents/rows according to the column family name.
      */
     public SortField[] sortFields() {
+        if (encoder != null) {
+            return new SortField[]{new SortField(ORDER_FIELD_NAME, SortField.Type.STRING)};
+        }
         return new SortField[]{new SortField(FIELD_NAME, new FieldComparatorSource() {
             @Override
             public FieldComparator<?> newComparator(String field, int hits, int sort, boolean reversed)
@@ -342,6 +354,12 @@ public class ClusteringKeyMapper {
      * specified column name prefixes.
      */
     public Query query(Composite start, Composite stop) {
+        if (encoder != null) {
+            Query query = encoder.query(start, stop);
+            if (query != null) {
+                return query;
+            }
+        }
         return new ClusteringKeyQuery(start, stop, this);
     }
 
@@ -16,6 +16,7 @@
 
 package com.stratio.cassandra.lucene.service;
 
+import com.google.common.base.Objects;
 import org.apache.cassandra.db.composites.CellName;
 import org.apache.cassandra.db.composites.CellNameType;
 import org.apache.cassandra.db.composites.Composite;
@@ -61,6 +62,28 @@ class ClusteringKeyQuery extends MultiTermQuery {
         return new FullKeyDataRangeFilteredTermsEnum(terms.iterator());
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass() || !super.equals(o)) {
+            return false;
+        }
+        ClusteringKeyQuery that = (ClusteringKeyQuery) o;
+        return mapper == that.mapper && Objects.equal(start, that.start) && Objects.equal(stop, that.stop);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int hashCode() {
+        int result = super.hashCode();
+        result = 31 * result + System.identityHashCode(mapper);
+        result = 31 * result + Objects.hashCode(start, stop);
+        return result;
+    }
+
     @Override
     public String toString(String field) {
         return new ToStringBuilder(this).append("field", field)
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2015, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.cassandra.lucene.service;
+
+import com.stratio.cassandra.lucene.IndexException;
+import org.apache.cassandra.utils.Pair;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * {@link Iterator} over the hits of a Lucene search, loading the {@link Document}s of the hits lazily in batches. This
+ * way only the {@link Document}s that are actually consumed are loaded, and they can be discarded as soon as they are
+ * processed.
+ *
+ * The hits of each batch are grouped by index segment and visited in doc id order, so the fields to be loaded are read
+ * from per-segment {@link SortedDocValues} retrieved once per segment and accessed forward. Documents lacking any of
+ * these doc values, as those indexed by previous versions, are loaded from their stored fields.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class DocumentIterator implements Iterator<Pair<Document, ScoreDoc>> {
+
+    /** The number of hits whose {@link Document}s are loaded together. */
+    static final int BATCH_SIZE = 100;
+
+    private final IndexSearcher searcher;
+    private final ScoreDoc[] scoreDocs;
+    private final String[] fieldsToLoad;
+    private final Set<String> fieldsToLoadSet;
+    private final List<LeafReaderContext> leaves;
+    private final Document[] documents;
+    private int position = 0;
+
+    /**
+     * Builds a new {@link DocumentIterator} over the specified hits.
+     *
+     * @param searcher     The {@link IndexSearcher} used to find the hits.
+     * @param scoreDocs    The found hits.
+     * @param fieldsToLoad The name of the fields to be loaded.
+     */
+    public DocumentIterator(IndexSearcher searcher, ScoreDoc[] scoreDocs, Set<String> fieldsToLoad) {
+        this.searcher = searcher;
+        this.scoreDocs = scoreDocs;
+        this.fieldsToLoad = fieldsToLoad.toArray(new String[fieldsToLoad.size()]);
+        this.fieldsToLoadSet = fieldsToLoad;
+        this.leaves = searcher.getIndexReader().leaves();
+        this.documents = new Document[Math.min(scoreDocs.length, BATCH_SIZE)];
+    }
+
+    /**
+     * Returns the total number of hits, including the already iterated ones.
+     *
+     * @return The total number of hits.
+     */
+    public int size() {
+        return scoreDocs.length;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean hasNext() {
+        return position < scoreDocs.length;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Pair<Document, ScoreDoc> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int index = position % BATCH_SIZE;
+        if (index == 0) {
+            load(position, Math.min(position + BATCH_SIZE, scoreDocs.length));
+        }
+        Document document = documents[index];
+        documents[index] = null;
+        return Pair.create(document, scoreDocs[position++]);
+    }
+
+    /**
+     * Loads the {@link Document}s of the hits between the specified positions, visiting them in doc id order.
+     *
+     * @param start The position of the first hit to be loaded, inclusive.
+     * @param end   The position of the last hit to be loaded, exclusive.
+     */
+    private void load(int start, int end) {
+
+        // Sort the batch positions by doc id
+        Integer[] positions = new Integer[end - start];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = start + i;
+        }
+        Arrays.sort(positions, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Integer.compare(scoreDocs[o1].doc, scoreDocs[o2].doc);
+            }
+        });
+
+        // Read each segment doc values once for all its hits
+        LeafReaderContext leaf = null;
+        SortedDocValues[] docValues = new SortedDocValues[fieldsToLoad.length];
+        for (int hit : positions) {
+            int doc = scoreDocs[hit].doc;
+            try {
+                if (leaf == null || doc >= leaf.docBase + leaf.reader().maxDoc()) {
+                    leaf = leaves.get(ReaderUtil.subIndex(doc, leaves));
+                    for (int i = 0; i < fieldsToLoad.length; i++) {
+                        docValues[i] = leaf.reader().getSortedDocValues(fieldsToLoad[i]);
+                    }
+                }
+                Document document = document(docValues, doc - leaf.docBase);
+                if (document == null) {
+                    document = searcher.doc(doc, fieldsToLoadSet);
+                }
+                documents[hit - start] = document;
+            } catch (IOException e) {
+                throw new IndexException(e, "Error while loading document %d", doc);
+            }
+        }
+    }
+
+    /**
+     * Returns a {@link Document} containing the fields to be loaded read from the specified segment doc values, or
+     * {@code null} if any of these fields has no doc values for the specified document.
+     *
+     * @param docValues The segment doc values of the fields to be loaded, in the same order.
+     * @param leafDoc   The segment-wide document id.
+     * @return The {@link Document} built from doc values, or {@code null} if it can't be built.
+     */
+    private Document document(SortedDocValues[] docValues, int leafDoc) {
+        Document document = new Document();
+        for (int i = 0; i < fieldsToLoad.length; i++) {
+            if (docValues[i] == null) {
+                return null;
+            }
+            int ord = docValues[i].getOrd(leafDoc);
+            if (ord < 0) {
+                return null;
+            }
+            BytesRef bytesRef = docValues[i].lookupOrd(ord);
+            document.add(new StoredField(fieldsToLoad[i], BytesRef.deepCopyOf(bytesRef)));
+        }
+        return document;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Removal is not supported");
+    }
+}
@@ -24,10 +24,10 @@ import org.apache.cassandra.db.marshal.AbstractType;
 import org.apache.cassandra.db.marshal.CompositeType;
 import org.apache.cassandra.utils.ByteBufferUtil;
 import org.apache.lucene.document.Document;
-import org.apache.lucene.document.Field;
 import org.apache.lucene.document.Field.Store;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.util.BytesRef;
 
 import java.nio.ByteBuffer;
 
@@ -119,9 +119,8 @@ public class FullKeyMapper {
      */
     public void addFields(Document document, DecoratedKey partitionKey, CellName clusteringKey) {
         ByteBuffer fullKey = byteBuffer(partitionKey, clusteringKey);
-        String string = ByteBufferUtils.toString(fullKey);
-        Field field = new StringField(FIELD_NAME, string, Store.NO);
-        document.add(field);
+        BytesRef bytesRef = ByteBufferUtils.bytesRef(fullKey);
+        document.add(new StringField(FIELD_NAME, bytesRef, Store.NO));
     }
 
     /**
@@ -134,7 +133,7 @@ public class FullKeyMapper {
      */
     public Term term(DecoratedKey partitionKey, CellName clusteringKey) {
         ByteBuffer fullKey = byteBuffer(partitionKey, clusteringKey);
-        return new Term(FIELD_NAME, ByteBufferUtils.toString(fullKey));
+        return new Term(FIELD_NAME, ByteBufferUtils.bytesRef(fullKey));
     }
 
 }
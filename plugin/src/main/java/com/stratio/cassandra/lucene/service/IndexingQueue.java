@@ -0,0 +1,312 @@
+/*
+ * Copyright 2015, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.cassandra.lucene.service;
+
+import com.stratio.cassandra.lucene.IndexException;
+import com.stratio.cassandra.lucene.util.Log;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.Term;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bounded multi-producer queue of indexing operations over a {@link LuceneIndex}. Operations are routed to a fixed
+ * number of worker threads according to a routing key, so operations with the same key are applied in submission
+ * order. Each worker drains its queue in batches, coalescing the upserts of the same {@link Term} within a batch so
+ * only the latest {@link Document} reaches the index writer. A batch is flushed when it reaches a max number of
+ * coalesced {@link Document}s, when a time window since its first operation expires, or before applying any
+ * non-upsert operation. Producers are blocked while the target queue is full.
+ *
+ * Failures applying the operations can't be reported to their producers, so the first one is kept and reported to the
+ * next caller of {@link #await()}.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class IndexingQueue {
+
+    private final LuceneIndex luceneIndex;
+    private final String logName;
+    private final List<BlockingQueue<Operation>> queues;
+    private final List<Thread> workers;
+    private final int batchSize;
+    private final long batchNanos;
+
+    /** The operation telling a worker to apply its pending operations and stop. */
+    private static final Operation POISON_PILL = new Operation(null, null);
+
+    /** Guards {@link #closed}, submissions hold the read lock so no operation can be queued after closing. */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** The first failure applying an operation that has not been reported yet. */
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+    private boolean closed = false;
+
+    /**
+     * Builds a new {@link IndexingQueue} writing into the specified {@link LuceneIndex}.
+     *
+     * @param luceneIndex The {@link LuceneIndex} where the operations are going to be applied.
+     * @param name        The name of the queue, used for naming its threads.
+     * @param numThreads  The number of worker threads, each one with its own queue.
+     * @param queuesSize  The max number of pending operations in each worker queue.
+     * @param batchSize   The max number of coalesced {@link Document}s in each worker before flushing them.
+     * @param batchMillis The max number of milliseconds to wait for more upserts to coalesce before flushing them.
+     */
+    public IndexingQueue(LuceneIndex luceneIndex,
+                         String name,
+                         int numThreads,
+                         int queuesSize,
+                         int batchSize,
+                         int batchMillis) {
+        this.luceneIndex = luceneIndex;
+        this.logName = String.format("Indexing queue %s", name);
+        this.batchSize = batchSize;
+        this.batchNanos = TimeUnit.MILLISECONDS.toNanos(batchMillis);
+        queues = new ArrayList<>(numThreads);
+        workers = new ArrayList<>(numThreads);
+        for (int i = 0; i < numThreads; i++) {
+            BlockingQueue<Operation> queue = new ArrayBlockingQueue<>(queuesSize);
+            Thread worker = new Thread(new Worker(queue), String.format("lucene-indexer-%s-%d", name, i));
+            worker.setDaemon(true);
+            queues.add(queue);
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+    }
+
+    /**
+     * Submits the upsert of the {@link Document}s returned by the specified {@link Callable}, which will be invoked by
+     * a worker thread. This blocks while the queue associated to the routing key is full.
+     *
+     * @param key       The routing key, operations with the same key are applied in submission order.
+     * @param documents The {@link Callable} building the {@link Document}s to be upserted by their {@link Term}s.
+     */
+    public void upsert(Object key, Callable<Map<Term, Document>> documents) {
+        submit(key, new Operation(documents, null));
+    }
+
+    /**
+     * Submits the specified non-upsert {@link Callable}, which will be invoked by a worker thread after applying all
+     * the previously submitted operations with the same routing key. This blocks while the queue associated to the
+     * routing key is full.
+     *
+     * @param key  The routing key, operations with the same key are applied in submission order.
+     * @param task The {@link Callable} to be invoked.
+     */
+    public void execute(Object key, Callable<?> task) {
+        submit(key, new Operation(null, task));
+    }
+
+    private void submit(Object key, Operation operation) {
+        int index = Math.abs(key.hashCode() % queues.size());
+        lock.readLock().lock();
+        try {
+            if (closed) {
+                throw new IndexException("%s is closed", logName);
+            }
+            queues.get(index).put(operation);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IndexException(e, "Interrupted while waiting for %s", logName);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Blocks until all the operations submitted before this call have been applied to the index.
+     *
+     * @throws IndexException If any operation has failed since the previous call.
+     */
+    public void await() {
+        final CountDownLatch latch = new CountDownLatch(queues.size());
+        boolean queued = false;
+        lock.readLock().lock();
+        try {
+            if (!closed) { // Otherwise all the operations have already been applied
+                queued = true;
+                for (BlockingQueue<Operation> queue : queues) {
+                    queue.put(new Operation(null, new Callable<Void>() {
+                        @Override
+                        public Void call() {
+                            latch.countDown();
+                            return null;
+                        }
+                    }));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IndexException(e, "Interrupted while waiting for %s", logName);
+        } finally {
+            lock.readLock().unlock();
+        }
+        try {
+            if (queued) {
+                latch.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IndexException(e, "Interrupted while waiting for %s", logName);
+        }
+        Exception e = failure.getAndSet(null);
+        if (e != null) {
+            throw new IndexException(e, "%s failed to apply some operations, the index should be rebuilt", logName);
+        }
+    }
+
+    /**
+     * Applies all the pending operations and stops the worker threads. No more operations are accepted after this.
+     * The workers are not interrupted, so they don't abort any ongoing index writing.
+     */
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            for (BlockingQueue<Operation> queue : queues) {
+                queue.put(POISON_PILL);
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IndexException(e, "Interrupted while closing %s", logName);
+        }
+        Exception e = failure.getAndSet(null);
+        if (e != null) {
+            Log.error(e, "%s failed to apply some operations, the index should be rebuilt", logName);
+        }
+        Log.info("%s closed", logName);
+    }
+
+    /**
+     * An indexing operation, which is either a {@link Document}s upsert or any other task.
+     */
+    private static class Operation {
+
+        /** The upserted {@link Document}s builder, {@code null} if this is not an upsert. */
+        private final Callable<Map<Term, Document>> documents;
+
+        /** The non-upsert task, {@code null} if this is an upsert. */
+        private final Callable<?> task;
+
+        Operation(Callable<Map<Term, Document>> documents, Callable<?> task) {
+            this.documents = documents;
+            this.task = task;
+        }
+    }
+
+    /**
+     * Worker draining a queue of {@link Operation}s in batches.
+     */
+    private class Worker implements Runnable {
+
+        private final BlockingQueue<Operation> queue;
+
+        Worker(BlockingQueue<Operation> queue) {
+            this.queue = queue;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void run() {
+            Map<Term, Document> upserts = new LinkedHashMap<>();
+            while (true) {
+                try {
+                    Operation operation = queue.take();
+                    long deadline = System.nanoTime() + batchNanos;
+                    while (operation != null) {
+                        if (operation == POISON_PILL) {
+                            flush(upserts);
+                            return;
+                        }
+                        apply(operation, upserts);
+                        if (upserts.size() >= batchSize) {
+                            break;
+                        }
+                        operation = queue.poll();
+                        if (operation == null && !upserts.isEmpty()) {
+                            long wait = deadline - System.nanoTime();
+                            if (wait > 0) {
+                                operation = queue.poll(wait, TimeUnit.NANOSECONDS);
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    flush(upserts);
+                    return;
+                }
+                flush(upserts);
+            }
+        }
+
+        private void apply(Operation operation, Map<Term, Document> upserts) {
+            if (operation.documents != null) {
+                try {
+                    upserts.putAll(operation.documents.call());
+                } catch (Exception e) {
+                    fail(e, "%s error while building documents", logName);
+                }
+            } else {
+                flush(upserts); // Preserve ordering with the previous upserts
+                try {
+                    operation.task.call();
+                } catch (Exception e) {
+                    fail(e, "%s error while executing task", logName);
+                }
+            }
+        }
+
+        private void flush(Map<Term, Document> upserts) {
+            if (!upserts.isEmpty()) {
+                try {
+                    luceneIndex.upsert(upserts);
+                } catch (Exception e) {
+                    fail(e, "%s error while upserting %d documents", logName, upserts.size());
+                }
+                upserts.clear();
+            }
+        }
+
+        private void fail(Exception e, String message, Object... args) {
+            Log.error(e, message, args);
+            failure.compareAndSet(null, e);
+        }
+    }
+}
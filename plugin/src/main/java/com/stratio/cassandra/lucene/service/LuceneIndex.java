@@ -16,28 +16,40 @@
 
 package com.stratio.cassandra.lucene.service;
 
+import com.stratio.cassandra.lucene.IndexException;
 import com.stratio.cassandra.lucene.util.Log;
 import org.apache.cassandra.io.util.FileUtils;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.MergePolicy;
+import org.apache.lucene.index.MergeScheduler;
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.index.SortingMergePolicy;
 import org.apache.lucene.index.Term;
-import org.apache.lucene.index.TieredMergePolicy;
 import org.apache.lucene.index.TrackingIndexWriter;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.ControlledRealTimeReopenThread;
+import org.apache.lucene.search.EarlyTerminatingSortingCollector;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LRUQueryCache;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.SearcherFactory;
 import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldCollector;
+import org.apache.lucene.search.UsageTrackingQueryCachingPolicy;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.store.NIOFSDirectory;
 import org.apache.lucene.store.NRTCachingDirectory;
+import org.apache.lucene.store.SimpleFSDirectory;
 
 import javax.management.MBeanException;
 import javax.management.ObjectName;
@@ -45,7 +57,8 @@ import javax.management.OperationsException;
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.nio.file.Path;
-import java.util.LinkedHashMap;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -61,11 +74,24 @@ public class LuceneIndex implements LuceneIndexMBean {
 
     private final Directory directory;
     private final IndexWriter indexWriter;
+    private final TrackingIndexWriter trackingIndexWriter;
     private final SearcherManager searcherManager;
     private final ControlledRealTimeReopenThread<IndexSearcher> searcherReopener;
+    private final LRUQueryCache queryCache;
+    private final UsageTrackingQueryCachingPolicy queryCachingPolicy;
+    private final SortingMergePolicy sortingMergePolicy;
 
     private ObjectName objectName;
 
+    /** The max number of distinct filter queries in the filter cache. */
+    private static final int MAX_CACHED_QUERIES = 1000;
+
+    /** The commit user data key of the version of the format used to encode the primary key fields. */
+    static final String FORMAT_KEY = "format";
+
+    /** The current version of the format used to encode the primary key fields, which are stored as raw bytes. */
+    static final String FORMAT_VERSION = "4";
+
     static {
         BooleanQuery.setMaxClauseCount(Integer.MAX_VALUE);
     }
@@ -73,40 +99,64 @@ public class LuceneIndex implements LuceneIndexMBean {
     /**
      * Builds a new {@code RowDirectory} using the specified directory path and analyzer.
      *
-     * @param keyspace       The keyspace name.
-     * @param table          The table name.
-     * @param name           The index name.
-     * @param path           The path of the directory in where the Lucene files will be stored.
-     * @param ramBufferMB    The index writer buffer size in MB.
-     * @param maxMergeMB     NRTCachingDirectory max merge size in MB.
-     * @param maxCachedMB    NRTCachingDirectory max cached MB.
-     * @param refreshSeconds The index readers refresh time in seconds. Writings are not visible until this time.
-     * @param analyzer       The default {@link Analyzer}.
+     * @param keyspace          The keyspace name.
+     * @param table             The table name.
+     * @param name              The index name.
+     * @param path              The path of the directory in where the Lucene files will be stored.
+     * @param directoryType     The type of Lucene directory, {@code auto}, {@code mmap}, {@code niofs} or {@code
+     *                          simplefs}.
+     * @param mmapChunkMB       The max size in MB of the memory mapped chunks when using a {@code mmap} directory.
+     * @param ramBufferMB       The index writer buffer size in MB.
+     * @param maxMergeMB        NRTCachingDirectory max merge size in MB.
+     * @param maxCachedMB       NRTCachingDirectory max cached MB.
+     * @param filterCacheMB     The max size in MB of the cache of filters matching documents, {@code 0} means no
+     *                          caching.
+     * @param mergePolicy       The index segments {@link MergePolicy}.
+     * @param mergeScheduler    The index segments {@link MergeScheduler}.
+     * @param compoundFile      If the flushed segments should be written as compound files.
+     * @param refreshSeconds    The index readers refresh time in seconds. Writings are not visible until this time.
+     * @param refreshMinSeconds The min time in seconds between index readers refreshes when there are searches
+     *                          waiting for a writing generation to be visible.
+     * @param analyzer          The default {@link Analyzer}.
      * @throws IOException If Lucene throws IO errors.
      */
     public LuceneIndex(String keyspace,
                        String table,
                        String name,
                        Path path,
+                       String directoryType,
+                       Integer mmapChunkMB,
                        Integer ramBufferMB,
                        Integer maxMergeMB,
                        Integer maxCachedMB,
+                       Integer filterCacheMB,
+                       MergePolicy mergePolicy,
+                       MergeScheduler mergeScheduler,
+                       Boolean compoundFile,
                        Double refreshSeconds,
+                       Double refreshMinSeconds,
                        Analyzer analyzer) throws IOException {
         this.path = path;
         this.logName = String.format("Lucene index %s.%s.%s", keyspace, table, name);
 
         // Open or create directory
-        FSDirectory fsDirectory = FSDirectory.open(path);
+        FSDirectory fsDirectory = directory(path, directoryType, mmapChunkMB);
         directory = new NRTCachingDirectory(fsDirectory, maxMergeMB, maxCachedMB);
 
         // Setup index writer
         IndexWriterConfig config = new IndexWriterConfig(analyzer);
         config.setRAMBufferSizeMB(ramBufferMB);
         config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
-        config.setUseCompoundFile(true);
-        config.setMergePolicy(new TieredMergePolicy());
+        config.setUseCompoundFile(compoundFile);
+        config.setMergePolicy(mergePolicy);
+        sortingMergePolicy = mergePolicy instanceof SortingMergePolicy ? (SortingMergePolicy) mergePolicy : null;
+        config.setMergeScheduler(mergeScheduler);
         indexWriter = new IndexWriter(directory, config);
+        checkFormat();
+
+        // Setup filter cache, its per-segment entries are released when the segments are closed
+        queryCache = filterCacheMB > 0 ? new LRUQueryCache(MAX_CACHED_QUERIES, filterCacheMB * 1024L * 1024L) : null;
+        queryCachingPolicy = new UsageTrackingQueryCachingPolicy();
 
         // Setup NRT search
         SearcherFactory searcherFactory = new SearcherFactory() {
@@ -114,15 +164,17 @@ public class LuceneIndex implements LuceneIndexMBean {
             public IndexSearcher newSearcher(IndexReader reader, IndexReader previousReader) {
                 IndexSearcher searcher = new IndexSearcher(reader);
                 searcher.setSimilarity(new NoIDFSimilarity());
+                searcher.setQueryCache(queryCache);
+                searcher.setQueryCachingPolicy(queryCachingPolicy);
                 return searcher;
             }
         };
-        TrackingIndexWriter trackingIndexWriter = new TrackingIndexWriter(indexWriter);
+        trackingIndexWriter = new TrackingIndexWriter(indexWriter);
         searcherManager = new SearcherManager(indexWriter, true, searcherFactory);
         searcherReopener = new ControlledRealTimeReopenThread<>(trackingIndexWriter,
                                                                 searcherManager,
                                                                 refreshSeconds,
-                                                                refreshSeconds);
+                                                                refreshMinSeconds);
         searcherReopener.start(); // Start the refresher thread
 
         // Register JMX MBean
@@ -138,6 +190,51 @@ public class LuceneIndex implements LuceneIndexMBean {
         }
     }
 
+    /**
+     * Checks that the existing index files, if any, use the current format, recording the current format version in
+     * the next commit. Indexes written with a previous format can't be searched nor updated by primary key, so they
+     * are refused without modifying them, and they must be rebuilt dropping and creating them again.
+     *
+     * @throws IOException If Lucene throws IO errors.
+     */
+    private void checkFormat() throws IOException {
+        String format = indexWriter.getCommitData().get(FORMAT_KEY);
+        if (!FORMAT_VERSION.equals(format) && indexWriter.maxDoc() > 0) {
+            indexWriter.rollback();
+            directory.close();
+            throw new IndexException("%s has been written with the old format %s instead of %s, " +
+                                     "it must be rebuilt dropping and creating it again",
+                                     logName,
+                                     format,
+                                     FORMAT_VERSION);
+        }
+        indexWriter.setCommitData(Collections.singletonMap(FORMAT_KEY, FORMAT_VERSION));
+    }
+
+    /**
+     * Opens or creates a file system {@link Directory} of the specified type.
+     *
+     * @param path          The path of the directory in where the Lucene files will be stored.
+     * @param directoryType The type of Lucene directory, {@code auto}, {@code mmap}, {@code niofs} or {@code simplefs}.
+     * @param mmapChunkMB   The max size in MB of the memory mapped chunks when using a {@code mmap} directory.
+     * @return The file system {@link Directory}.
+     * @throws IOException If Lucene throws IO errors.
+     */
+    private static FSDirectory directory(Path path, String directoryType, int mmapChunkMB) throws IOException {
+        switch (directoryType) {
+            case "auto":
+                return FSDirectory.open(path);
+            case "mmap":
+                return new MMapDirectory(path, mmapChunkMB << 20);
+            case "niofs":
+                return new NIOFSDirectory(path);
+            case "simplefs":
+                return new SimpleFSDirectory(path);
+            default:
+                throw new IndexException("Unsupported directory type %s", directoryType);
+        }
+    }
+
     /**
      * Updates the specified {@link Document} by first deleting the documents containing {@code Term} and then adding
      * the new document. The delete and then add are atomic as seen by a reader on the same index (flush may happen only
@@ -145,60 +242,102 @@ public class LuceneIndex implements LuceneIndexMBean {
      *
      * @param term     The {@link Term} to identify the document(s) to be deleted.
      * @param document The {@link Document} to be added.
+     * @return The writing generation of the operation.
      * @throws IOException If Lucene throws IO errors.
      */
-    public void upsert(Term term, Document document) throws IOException {
+    public long upsert(Term term, Document document) throws IOException {
         Log.debug("%s update document %s with term %s", logName, document, term);
-        indexWriter.updateDocument(term, document);
+        return trackingIndexWriter.updateDocument(term, document);
     }
 
-    public void upsert(Map<Term, Document> documents) throws IOException {
+    /**
+     * Updates the specified {@link Document}s identified by their {@link Term}s.
+     *
+     * @param documents The {@link Document}s to be added, mapped by the {@link Term} identifying them.
+     * @return The writing generation of the last operation.
+     * @throws IOException If Lucene throws IO errors.
+     */
+    public long upsert(Map<Term, Document> documents) throws IOException {
+        long generation = trackingIndexWriter.getGeneration();
         for (Map.Entry<Term, Document> entry : documents.entrySet()) {
-            upsert(entry.getKey(), entry.getValue()); // Store document
+            generation = upsert(entry.getKey(), entry.getValue()); // Store document
         }
+        return generation;
     }
 
     /**
      * Deletes all the {@link Document}s containing the specified {@link Term}.
      *
      * @param term The {@link Term} to identify the documents to be deleted.
+     * @return The writing generation of the operation.
      * @throws IOException If Lucene throws IO errors.
      */
-    public void delete(Term term) throws IOException {
+    public long delete(Term term) throws IOException {
         Log.debug(String.format("%s delete by term %s", logName, term));
-        indexWriter.deleteDocuments(term);
+        return trackingIndexWriter.deleteDocuments(term);
     }
 
     /**
      * Deletes all the {@link Document}s satisfying the specified {@link Query}.
      *
      * @param query The {@link Query} to identify the documents to be deleted.
+     * @return The writing generation of the operation.
      * @throws IOException If Lucene throws IO errors.
      */
-    public void delete(Query query) throws IOException {
+    public long delete(Query query) throws IOException {
         Log.debug("%s deleting by query %s", logName, query);
-        indexWriter.deleteDocuments(query);
+        return trackingIndexWriter.deleteDocuments(query);
     }
 
     /**
      * Deletes all the {@link Document}s.
      *
+     * @return The writing generation of the operation.
      * @throws IOException If Lucene throws IO errors.
      */
-    public void truncate() throws IOException {
-        indexWriter.deleteAll();
+    public long truncate() throws IOException {
+        long generation = trackingIndexWriter.deleteAll();
         Log.info("%s truncated", logName);
+        return generation;
     }
 
     /**
-     * Commits the pending changes.
+     * Blocks until the index readers can see all the writings up to the specified generation, which should have been
+     * returned by a writing operation. The wait takes at most the min refresh time if the readers are not refreshed
+     * before, and the index is not committed.
+     *
+     * @param generation The writing generation to be waited for.
+     */
+    public void waitForGeneration(long generation) {
+        try {
+            searcherReopener.waitForGeneration(generation);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IndexException(e, "Interrupted while waiting for %s generation %d", logName, generation);
+        }
+    }
+
+    /**
+     * Blocks until the index readers can see all the writings done before this call. The wait takes at most the min
+     * refresh time if the readers are not refreshed before, and the index is not committed.
+     */
+    public void waitForWrites() {
+        waitForGeneration(trackingIndexWriter.getGeneration());
+    }
+
+    /**
+     * Commits the pending changes. Nothing is written to disk if there are no changes since the last commit.
      *
      * @throws IOException If Lucene throws IO errors.
      */
     @Override
     public void commit() throws IOException {
-        indexWriter.commit();
-        Log.info("%s committed", logName);
+        if (indexWriter.hasUncommittedChanges()) {
+            indexWriter.commit();
+            Log.info("%s committed", logName);
+        } else {
+            Log.debug("%s has no changes to commit", logName);
+        }
     }
 
     /**
@@ -207,7 +346,7 @@ public class LuceneIndex implements LuceneIndexMBean {
      * @throws IOException If Lucene throws IO errors.
      */
     public void close() throws IOException {
-        searcherReopener.interrupt();
+        searcherReopener.close();
         searcherManager.close();
         indexWriter.close();
         directory.close();
@@ -236,7 +375,7 @@ public class LuceneIndex implements LuceneIndexMBean {
 
     /**
      * Finds the top {@code count} hits for {@code query}, applying {@code clusteringKeyFilter} if non-null, and sorting
-     * the hits by the criteria in {@code sortFields}.
+     * the hits by the criteria in {@code sortFields}. The {@link Document}s are lazily loaded while iterating.
      *
      * @param searcher     The {@link IndexSearcher} to be used.
      * @param query        The {@link Query} to search for.
@@ -247,30 +386,39 @@ public class LuceneIndex implements LuceneIndexMBean {
      * @return The found documents, sorted according to the supplied {@link Sort} instance.
      * @throws IOException If Lucene throws IO errors.
      */
-    public LinkedHashMap<Document, ScoreDoc> search(IndexSearcher searcher,
-                                                    Query query,
-                                                    Sort sort,
-                                                    ScoreDoc after,
-                                                    Integer count,
-                                                    Set<String> fieldsToLoad) throws IOException {
+    public DocumentIterator search(IndexSearcher searcher,
+                                   Query query,
+                                   Sort sort,
+                                   ScoreDoc after,
+                                   Integer count,
+                                   Set<String> fieldsToLoad) throws IOException {
         Log.debug("%s search by query %s and sort %s", logName, query, sort);
 
         TopDocs topDocs;
         if (sort == null) {
             topDocs = searcher.searchAfter(after, query, count);
+        } else if (after == null && count > 0 && canEarlyTerminate(sort)) {
+            // Segments sorted by the merge policy are only read until collecting the requested number of hits
+            TopFieldCollector collector = TopFieldCollector.create(sort, count, null, true, false, false);
+            searcher.search(query, new EarlyTerminatingSortingCollector(collector, sort, count, sortingMergePolicy));
+            topDocs = collector.topDocs();
         } else {
             topDocs = searcher.searchAfter(after, query, count, sort);
         }
-        ScoreDoc[] scoreDocs = topDocs.scoreDocs;
-
-        // Collect the documents from query result
-        LinkedHashMap<Document, ScoreDoc> searchResults = new LinkedHashMap<>();
-        for (ScoreDoc scoreDoc : scoreDocs) {
-            Document document = searcher.doc(scoreDoc.doc, fieldsToLoad);
-            searchResults.put(document, scoreDoc);
-        }
+        return new DocumentIterator(searcher, topDocs.scoreDocs, fieldsToLoad);
+    }
 
-        return searchResults;
+    /**
+     * Returns if the searches sorted by the specified {@link Sort} can stop reading each segment sorted by the merge
+     * policy once the requested number of hits has been collected. That is, if the specified sort is a prefix of the
+     * merge policy sort.
+     *
+     * @param sort A {@link Sort}.
+     * @return {@code true} if the searches sorted by {@code sort} can be early terminated, {@code false} otherwise.
+     */
+    private boolean canEarlyTerminate(Sort sort) {
+        return sortingMergePolicy != null &&
+               EarlyTerminatingSortingCollector.canEarlyTerminate(sort, sortingMergePolicy);
     }
 
     /**
@@ -290,6 +438,25 @@ public class LuceneIndex implements LuceneIndexMBean {
         }
     }
 
+    /**
+     * Returns the names of the fields indexed by any of the {@link Document}s in this index.
+     *
+     * @return The names of the indexed fields.
+     * @throws IOException If Lucene throws IO errors.
+     */
+    public Set<String> getFields() throws IOException {
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            Set<String> fields = new HashSet<>();
+            for (FieldInfo fieldInfo : MultiFields.getMergedFieldInfos(searcher.getIndexReader())) {
+                fields.add(fieldInfo.name);
+            }
+            return fields;
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
     /**
      * Returns the total number of deleted {@link Document}s in this index.
      *
@@ -307,6 +474,24 @@ public class LuceneIndex implements LuceneIndexMBean {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public long getFilterCacheHitCount() {
+        return queryCache == null ? 0 : queryCache.getHitCount();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getFilterCacheMissCount() {
+        return queryCache == null ? 0 : queryCache.getMissCount();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getFilterCacheBytes() {
+        return queryCache == null ? 0 : queryCache.ramBytesUsed();
+    }
+
     /**
      * Optimizes the index forcing merge segments leaving the specified number of segments. This operation may block
      * until all merging completes.
@@ -339,12 +524,12 @@ public class LuceneIndex implements LuceneIndexMBean {
     }
 
     /**
-     * Refreshes the index readers.
+     * Refreshes the index readers to see all the writings done before this call. The index is not committed, the near
+     * real-time readers don't need it.
      */
     @Override
     public void refresh() throws IOException {
         Log.info("%s refreshing readers", logName);
-        commit();
         searcherManager.maybeRefreshBlocking();
     }
 }
@@ -46,6 +46,27 @@ public interface LuceneIndexMBean {
      */
     long getNumDeletedDocs() throws IOException;
 
+    /**
+     * Returns the number of filter lookups that have been served by the filter cache.
+     *
+     * @return The number of filter cache hits.
+     */
+    long getFilterCacheHitCount();
+
+    /**
+     * Returns the number of filter lookups that have not been served by the filter cache.
+     *
+     * @return The number of filter cache misses.
+     */
+    long getFilterCacheMissCount();
+
+    /**
+     * Returns the memory used by the filter cache in bytes.
+     *
+     * @return The memory used by the filter cache in bytes.
+     */
+    long getFilterCacheBytes();
+
     /**
      * Optimizes the index forcing merge segments leaving the specified number of segments. This operation may block
      * until all merging completes.
@@ -66,7 +87,7 @@ public interface LuceneIndexMBean {
     void forceMergeDeletes(boolean doWait) throws IOException;
 
     /**
-     * Refreshes the index readers.
+     * Refreshes the index readers without committing the index.
      *
      * @throws IOException If Lucene throws IO errors.
      */
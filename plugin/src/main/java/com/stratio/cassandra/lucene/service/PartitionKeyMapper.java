@@ -27,12 +27,13 @@ import org.apache.cassandra.db.DecoratedKey;
 import org.apache.cassandra.db.marshal.AbstractType;
 import org.apache.cassandra.dht.IPartitioner;
 import org.apache.lucene.document.Document;
-import org.apache.lucene.document.Field;
 import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.util.BytesRef;
 
 import java.nio.ByteBuffer;
 import java.util.List;
@@ -94,9 +95,9 @@ public class PartitionKeyMapper {
      * @param partitionKey The raw partition key to be converted.
      */
     public void addFields(Document document, DecoratedKey partitionKey) {
-        String serializedKey = ByteBufferUtils.toString(partitionKey.getKey());
-        Field field = new StringField(FIELD_NAME, serializedKey, Store.YES);
-        document.add(field);
+        BytesRef bytesRef = ByteBufferUtils.bytesRef(partitionKey.getKey());
+        document.add(new StringField(FIELD_NAME, bytesRef, Store.YES));
+        document.add(new SortedDocValuesField(FIELD_NAME, bytesRef));
     }
 
     /**
@@ -106,8 +107,8 @@ public class PartitionKeyMapper {
      * @return The specified raw partition key as a Lucene {@link Term}.
      */
     public Term term(DecoratedKey partitionKey) {
-        String serializedKey = ByteBufferUtils.toString(partitionKey.getKey());
-        return new Term(FIELD_NAME, serializedKey);
+        BytesRef bytesRef = ByteBufferUtils.bytesRef(partitionKey.getKey());
+        return new Term(FIELD_NAME, bytesRef);
     }
 
     /**
@@ -127,8 +128,8 @@ public class PartitionKeyMapper {
      * @return The {@link DecoratedKey} contained in the specified Lucene {@link Document}.
      */
     public DecoratedKey partitionKey(Document document) {
-        String string = document.get(FIELD_NAME);
-        ByteBuffer partitionKey = ByteBufferUtils.fromString(string);
+        BytesRef bytesRef = document.getBinaryValue(FIELD_NAME);
+        ByteBuffer partitionKey = ByteBufferUtils.byteBuffer(bytesRef);
         return partitionKey(partitionKey);
     }
 
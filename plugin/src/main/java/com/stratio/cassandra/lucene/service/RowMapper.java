@@ -28,8 +28,12 @@ import org.apache.cassandra.db.ColumnFamily;
 import org.apache.cassandra.db.DataRange;
 import org.apache.cassandra.db.DecoratedKey;
 import org.apache.cassandra.db.Row;
+import org.apache.cassandra.db.RowPosition;
 import org.apache.cassandra.db.composites.CellName;
+import org.apache.cassandra.db.filter.IDiskAtomFilter;
 import org.apache.cassandra.db.marshal.UTF8Type;
+import org.apache.cassandra.dht.AbstractBounds;
+import org.apache.cassandra.dht.Token;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.Query;
@@ -38,8 +42,13 @@ import org.apache.lucene.search.SortField;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 
 /**
  * Class for several {@link Row} mappings between Cassandra and Lucene data models.
@@ -148,6 +157,18 @@ public abstract class RowMapper {
      */
     public abstract Query query(DataRange dataRange);
 
+    /**
+     * Returns a Lucene {@link Query} to get the {@link Document}s whose token is inside any of the specified row
+     * ranges.
+     *
+     * @param ranges A list of row ranges.
+     * @return The Lucene {@link Query} to get the {@link Document}s inside any of the specified row ranges, or {@code
+     * null} if there is no token restriction.
+     */
+    public Query query(List<? extends AbstractBounds<RowPosition>> ranges) {
+        return tokenMapper.query(ranges);
+    }
+
     /**
      * Returns a Lucene {@link Query} to get the {@link Document} with the specified {@link RowKey}.
      *
@@ -172,46 +193,227 @@ public abstract class RowMapper {
     public abstract CellName makeCellName(ColumnFamily columnFamily);
 
     /**
-     * Returns a {@link Row} {@link Comparator} using the same order that is used in Cassandra.
+     * Returns a {@link CellName} for the indexed column in the CQL row identified by the specified clustering key.
      *
-     * @return A {@link Row} {@link Comparator} using the same order that is used in Cassandra.
+     * @param clusteringKey A clustering key, maybe {@code null} if the table has no clustering key.
+     * @return A {@link CellName} for the indexed column in the specified CQL row.
      */
-    protected abstract Comparator<Row> comparator();
+    public abstract CellName makeCellName(CellName clusteringKey);
+
+    /**
+     * Returns an {@link IDiskAtomFilter} to read the CQL rows of a partition with the specified clustering keys.
+     *
+     * @param clusteringKeys The clustering keys of the CQL rows to be read, ignored if the table has no clustering key.
+     * @return An {@link IDiskAtomFilter} to read the specified CQL rows.
+     */
+    public abstract IDiskAtomFilter filter(List<CellName> clusteringKeys);
+
+    /**
+     * Splits the specified storage engine {@link Row} into CQL logical {@link Row}s.
+     *
+     * @param row A storage engine {@link Row}.
+     * @return The CQL logical {@link Row}s contained in {@code row}.
+     */
+    public abstract List<Row> split(Row row);
+
+    /**
+     * Returns the clustering key of the specified {@link Row}, or {@code null} if the table has no clustering key.
+     *
+     * @param row A {@link Row}.
+     * @return The clustering key of the specified {@link Row}.
+     */
+    public abstract CellName clusteringKey(Row row);
+
+    /**
+     * Compares the two specified clustering keys using the same order that is used in Cassandra.
+     *
+     * @param clusteringKey1 A clustering key, maybe {@code null} if the table has no clustering key.
+     * @param clusteringKey2 Another clustering key, maybe {@code null} if the table has no clustering key.
+     * @return A negative integer, zero, or a positive integer as the first argument is less than, equal to, or greater
+     * than the second.
+     */
+    protected abstract int compare(CellName clusteringKey1, CellName clusteringKey2);
 
     /**
      * Returns the {@link Comparator} to be used for ordering the {@link Row}s obtained from the specified {@link
      * Search}. This {@link Comparator} is useful for merging the partial results obtained from running the specified
-     * {@link Search} against several indexes.
+     * {@link Search} against several indexes. The sort key of each compared {@link Row} is extracted only once, so the
+     * returned {@link Comparator} is not thread-safe.
      *
      * @param search A {@link Search}.
      * @return The {@link Comparator} to be used for ordering the {@link Row}s obtained from the specified {@link
      * Search}.
      */
-    public Comparator<Row> comparator(Search search) {
-        List<Comparator<Row>> comparators = new ArrayList<>();
-        if (search.usesSorting()) {
-            final Comparator<Columns> comparator = search.getSort().comparator();
-            comparators.add(new Comparator<Row>() {
-                @Override
-                public int compare(Row row1, Row row2) {
-                    Columns columns1 = columns(row1);
-                    Columns columns2 = columns(row2);
-                    return comparator.compare(columns1, columns2);
+    public Comparator<Row> comparator(final Search search) {
+        final Comparator<SortKey> comparator = sortKeyComparator(search);
+        final Map<Row, SortKey> sortKeys = new IdentityHashMap<>();
+        return new Comparator<Row>() {
+            @Override
+            public int compare(Row row1, Row row2) {
+                return comparator.compare(sortKey(row1), sortKey(row2));
+            }
+
+            private SortKey sortKey(Row row) {
+                SortKey sortKey = sortKeys.get(row);
+                if (sortKey == null) {
+                    sortKey = new SortKey(search, row);
+                    sortKeys.put(row, sortKey);
                 }
-            });
+                return sortKey;
+            }
+        };
+    }
+
+    /**
+     * Returns the specified {@link Row}s sorted according to the specified {@link Search}, optionally removing the
+     * duplicates. The sort key of each {@link Row} is extracted only once, before sorting.
+     *
+     * @param search   A {@link Search}.
+     * @param rows     The {@link Row}s to be sorted.
+     * @param distinct If the {@link Row}s with the same sort key but the first one should be removed.
+     * @return The sorted {@link Row}s.
+     */
+    public List<Row> sort(Search search, List<Row> rows, boolean distinct) {
+        List<SortKey> sortKeys = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            sortKeys.add(new SortKey(search, row));
+        }
+        Comparator<SortKey> comparator = sortKeyComparator(search);
+        Collections.sort(sortKeys, comparator);
+        List<Row> result = new ArrayList<>(sortKeys.size());
+        SortKey last = null;
+        for (SortKey sortKey : sortKeys) {
+            if (!distinct || last == null || comparator.compare(last, sortKey) != 0) {
+                result.add(sortKey.row);
+                last = sortKey;
+            }
         }
-        if (search.usesRelevance()) {
-            comparators.add(new Comparator<Row>() {
-                @Override
-                public int compare(Row row1, Row row2) {
-                    Float score1 = score(row1);
-                    Float score2 = score(row2);
-                    return score2.compareTo(score1);
+        return result;
+    }
+
+    /**
+     * Merges the specified lists of {@link Row}s into a single list sorted according to the specified {@link Search},
+     * removing duplicates and stopping as soon as {@code limit} {@link Row}s have been collected. Each list is expected
+     * to be already sorted, otherwise it is sorted before merging. Between duplicates, the one in the first list is
+     * kept.
+     *
+     * @param search A {@link Search}.
+     * @param rows   The lists of {@link Row}s to be merged.
+     * @param limit  The max number of {@link Row}s to be returned.
+     * @return The merged {@link Row}s.
+     */
+    public List<Row> merge(Search search, List<List<Row>> rows, int limit) {
+        final Comparator<SortKey> comparator = sortKeyComparator(search);
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>(Math.max(1, rows.size()), new Comparator<Cursor>() {
+            @Override
+            public int compare(Cursor cursor1, Cursor cursor2) {
+                int comparison = comparator.compare(cursor1.head, cursor2.head);
+                return comparison == 0 ? Integer.compare(cursor1.index, cursor2.index) : comparison;
+            }
+        });
+        for (int i = 0; i < rows.size(); i++) {
+            List<SortKey> sortKeys = new ArrayList<>(rows.get(i).size());
+            for (Row row : rows.get(i)) {
+                sortKeys.add(new SortKey(search, row));
+            }
+            if (!Ordering.from(comparator).isOrdered(sortKeys)) {
+                Collections.sort(sortKeys, comparator);
+            }
+            Cursor cursor = new Cursor(i, sortKeys.iterator());
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+        List<Row> result = new ArrayList<>(Math.min(limit, 1000));
+        SortKey last = null;
+        while (result.size() < limit && !cursors.isEmpty()) {
+            Cursor cursor = cursors.poll();
+            SortKey sortKey = cursor.head;
+            if (last == null || comparator.compare(last, sortKey) != 0) {
+                result.add(sortKey.row);
+                last = sortKey;
+            }
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the {@link SortKey} {@link Comparator} for the specified {@link Search}. The comparison criteria are the
+     * {@link Search} sort fields, the relevance, the token and the clustering key, in this order.
+     *
+     * @param search A {@link Search}.
+     * @return The {@link SortKey} {@link Comparator} for the specified {@link Search}.
+     */
+    private Comparator<SortKey> sortKeyComparator(Search search) {
+        final Comparator<Columns> columnsComparator = search.usesSorting() ? search.getSort().comparator() : null;
+        final boolean relevance = search.usesRelevance();
+        return new Comparator<SortKey>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public int compare(SortKey key1, SortKey key2) {
+                int comparison;
+                if (columnsComparator != null) {
+                    comparison = columnsComparator.compare(key1.columns, key2.columns);
+                    if (comparison != 0) {
+                        return comparison;
+                    }
+                }
+                if (relevance) {
+                    comparison = Float.compare(key2.score, key1.score);
+                    if (comparison != 0) {
+                        return comparison;
+                    }
                 }
-            });
+                comparison = key1.token.compareTo(key2.token);
+                if (comparison != 0) {
+                    return comparison;
+                }
+                return RowMapper.this.compare(key1.clusteringKey, key2.clusteringKey);
+            }
+        };
+    }
+
+    /**
+     * A position in a sorted list of {@link SortKey}s being merged.
+     */
+    private static final class Cursor {
+
+        private final int index;
+        private final Iterator<SortKey> iterator;
+        private SortKey head;
+
+        Cursor(int index, Iterator<SortKey> iterator) {
+            this.index = index;
+            this.iterator = iterator;
+        }
+
+        boolean advance() {
+            head = iterator.hasNext() ? iterator.next() : null;
+            return head != null;
+        }
+    }
+
+    /**
+     * A {@link Row} decorated with the values used for sorting it, which are extracted only once.
+     */
+    private final class SortKey {
+
+        private final Row row;
+        private final Columns columns;
+        private final float score;
+        private final Token token;
+        private final CellName clusteringKey;
+
+        SortKey(Search search, Row row) {
+            this.row = row;
+            this.columns = search.usesSorting() ? columns(row) : null;
+            this.score = search.usesRelevance() ? score(row) : 0;
+            this.token = row.key.getToken();
+            this.clusteringKey = clusteringKey(row);
         }
-        comparators.add(comparator());
-        return Ordering.compound(comparators);
     }
 
     /**
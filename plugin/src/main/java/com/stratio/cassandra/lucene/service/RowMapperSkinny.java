@@ -27,6 +27,7 @@ import org.apache.cassandra.db.Row;
 import org.apache.cassandra.db.RowPosition;
 import org.apache.cassandra.db.composites.CellName;
 import org.apache.cassandra.db.composites.Composite;
+import org.apache.cassandra.db.filter.ColumnSlice;
 import org.apache.cassandra.db.filter.IDiskAtomFilter;
 import org.apache.cassandra.db.filter.SliceQueryFilter;
 import org.apache.cassandra.dht.Token;
@@ -38,7 +39,8 @@ import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TermQuery;
 
 import java.nio.ByteBuffer;
-import java.util.Comparator;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * {@link RowMapper} for skinny rows.
@@ -129,8 +131,32 @@ public class RowMapperSkinny extends RowMapper {
 
     /** {@inheritDoc} */
     @Override
-    public Comparator<Row> comparator() {
-        return tokenMapper.comparator();
+    public CellName makeCellName(CellName clusteringKey) {
+        return metadata.comparator.makeCellName(columnDefinition.name.bytes);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public IDiskAtomFilter filter(List<CellName> clusteringKeys) {
+        return new SliceQueryFilter(ColumnSlice.ALL_COLUMNS_ARRAY, false, Integer.MAX_VALUE);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<Row> split(Row row) {
+        return Collections.singletonList(row);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CellName clusteringKey(Row row) {
+        return null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected int compare(CellName clusteringKey1, CellName clusteringKey2) {
+        return 0;
     }
 
     /** {@inheritDoc} */
@@ -16,7 +16,6 @@
 
 package com.stratio.cassandra.lucene.service;
 
-import com.google.common.collect.Ordering;
 import com.stratio.cassandra.lucene.schema.Schema;
 import com.stratio.cassandra.lucene.schema.column.Columns;
 import org.apache.cassandra.config.CFMetaData;
@@ -30,6 +29,7 @@ import org.apache.cassandra.db.RowPosition;
 import org.apache.cassandra.db.composites.CellName;
 import org.apache.cassandra.db.composites.Composite;
 import org.apache.cassandra.db.filter.ColumnSlice;
+import org.apache.cassandra.db.filter.IDiskAtomFilter;
 import org.apache.cassandra.db.filter.SliceQueryFilter;
 import org.apache.cassandra.dht.Token;
 import org.apache.cassandra.utils.ByteBufferUtil;
@@ -44,8 +44,7 @@ import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TermQuery;
 
 import java.nio.ByteBuffer;
-import java.util.Arrays;
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -125,8 +124,38 @@ public class RowMapperWide extends RowMapper {
 
     /** {@inheritDoc} */
     @Override
-    public Comparator<Row> comparator() {
-        return Ordering.compound(Arrays.asList(tokenMapper.comparator(), clusteringKeyMapper.comparator()));
+    public CellName makeCellName(CellName clusteringKey) {
+        return clusteringKeyMapper.makeCellName(clusteringKey, columnDefinition);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public IDiskAtomFilter filter(List<CellName> clusteringKeys) {
+        ColumnSlice[] slices = columnSlices(clusteringKeys);
+        return new SliceQueryFilter(slices, false, Integer.MAX_VALUE, metadata.clusteringColumns().size());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<Row> split(Row row) {
+        Map<CellName, ColumnFamily> columnFamilies = splitRows(row.cf);
+        List<Row> rows = new ArrayList<>(columnFamilies.size());
+        for (ColumnFamily columnFamily : columnFamilies.values()) {
+            rows.add(new Row(row.key, columnFamily));
+        }
+        return rows;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CellName clusteringKey(Row row) {
+        return clusteringKeyMapper.clusteringKey(row);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected int compare(CellName clusteringKey1, CellName clusteringKey2) {
+        return clusteringKeyMapper.getType().compare(clusteringKey1, clusteringKey2);
     }
 
     /**
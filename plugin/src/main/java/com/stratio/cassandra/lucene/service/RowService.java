@@ -17,12 +17,15 @@
 package com.stratio.cassandra.lucene.service;
 
 import com.stratio.cassandra.lucene.IndexConfig;
+import com.stratio.cassandra.lucene.IndexConfig.CompoundFilePolicy;
+import com.stratio.cassandra.lucene.IndexException;
 import com.stratio.cassandra.lucene.schema.Schema;
 import com.stratio.cassandra.lucene.schema.column.Column;
 import com.stratio.cassandra.lucene.schema.column.Columns;
 import com.stratio.cassandra.lucene.search.Search;
 import com.stratio.cassandra.lucene.util.Log;
 import com.stratio.cassandra.lucene.util.TimeCounter;
+import org.apache.cassandra.concurrent.DebuggableThreadPoolExecutor;
 import org.apache.cassandra.config.CFMetaData;
 import org.apache.cassandra.config.ColumnDefinition;
 import org.apache.cassandra.cql3.Operator;
@@ -34,23 +37,33 @@ import org.apache.cassandra.db.DataRange;
 import org.apache.cassandra.db.DecoratedKey;
 import org.apache.cassandra.db.IndexExpression;
 import org.apache.cassandra.db.Row;
+import org.apache.cassandra.db.RowPosition;
 import org.apache.cassandra.db.composites.CellName;
 import org.apache.cassandra.db.marshal.AbstractType;
 import org.apache.cassandra.db.marshal.UTF8Type;
+import org.apache.cassandra.dht.AbstractBounds;
+import org.apache.cassandra.utils.Pair;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.index.ConcurrentMergeScheduler;
+import org.apache.lucene.index.MergePolicy;
+import org.apache.lucene.index.MergeScheduler;
+import org.apache.lucene.index.SortingMergePolicy;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TieredMergePolicy;
 import org.apache.lucene.search.*;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import static org.apache.lucene.search.BooleanClause.Occur.FILTER;
 import static org.apache.lucene.search.BooleanClause.Occur.MUST;
@@ -67,11 +80,24 @@ public abstract class RowService {
     private static final int MAX_PAGE_SIZE = 100000;
     private static final int FILTERING_PAGE_SIZE = 1000;
 
+    /** The max number of loaded documents to be collected from Cassandra at once. */
+    private static final int FETCH_BATCH_SIZE = 100;
+
     final ColumnFamilyStore baseCfs;
     final RowMapper rowMapper;
     final CFMetaData metadata;
     final LuceneIndex luceneIndex;
 
+    /** The asynchronous indexing queue, maybe {@code null} meaning synchronous indexing. */
+    private final IndexingQueue indexingQueue;
+
+    /** The executor for collecting rows from Cassandra, maybe {@code null} meaning sequential collection. */
+    private final ExecutorService fetchExecutor;
+    private final int fetchParallelism;
+
+    /** The cache of parsed {@link Search}es. */
+    private final SearchCache searchCache;
+
     protected final Schema schema;
 
     /**
@@ -95,11 +121,133 @@ public abstract class RowService {
                                            columnDefinition.cfName,
                                            columnDefinition.getIndexName(),
                                            config.getPath(),
+                                           config.getDirectoryType(),
+                                           config.getMmapChunkMB(),
                                            config.getRamBufferMB(),
                                            config.getMaxMergeMB(),
                                            config.getMaxCachedMB(),
+                                           config.getFilterCacheMB(),
+                                           mergePolicy(config, rowMapper),
+                                           mergeScheduler(config),
+                                           config.getCompoundFile() != CompoundFilePolicy.NEVER,
                                            config.getRefreshSeconds(),
+                                           config.getRefreshMinSeconds(),
                                            schema.getAnalyzer());
+        checkFields(columnDefinition);
+
+        String name = String.format("%s.%s.%s",
+                                    columnDefinition.ksName,
+                                    columnDefinition.cfName,
+                                    columnDefinition.getIndexName());
+
+        int indexingThreads = config.getIndexingThreads();
+        if (indexingThreads > 0) {
+            indexingQueue = new IndexingQueue(luceneIndex,
+                                              name,
+                                              indexingThreads,
+                                              config.getIndexingQueuesSize(),
+                                              config.getIndexingBatchSize(),
+                                              config.getIndexingBatchMillis());
+        } else {
+            indexingQueue = null;
+        }
+
+        int fetchThreads = config.getFetchThreads();
+        if (fetchThreads > 0) {
+            fetchExecutor = DebuggableThreadPoolExecutor.createWithFixedPoolSize("LuceneFetcher:" + name, fetchThreads);
+            fetchParallelism = fetchThreads;
+        } else {
+            fetchExecutor = null;
+            fetchParallelism = 1;
+        }
+
+        searchCache = new SearchCache(columnDefinition.ksName,
+                                      columnDefinition.cfName,
+                                      columnDefinition.getIndexName(),
+                                      SearchCache.DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Checks that the existing index, if not empty, contains the fields used to sort the rows, which are not present in
+     * the indexes written by previous versions, refusing it otherwise. Such indexes would silently return wrong results
+     * when sorting or searching by primary key.
+     *
+     * @param columnDefinition The indexed column definition.
+     * @throws IOException If there are I/O errors.
+     */
+    private void checkFields(ColumnDefinition columnDefinition) throws IOException {
+        Set<String> fields = luceneIndex.getFields();
+        if (!fields.isEmpty()) {
+            for (SortField sortField : rowMapper.sortFields()) {
+                if (!fields.contains(sortField.getField())) {
+                    luceneIndex.close();
+                    throw new IndexException("Lucene index %s.%s.%s has been written without the field %s, " +
+                                             "it must be rebuilt dropping and creating it again",
+                                             columnDefinition.ksName,
+                                             columnDefinition.cfName,
+                                             columnDefinition.getIndexName(),
+                                             sortField.getField());
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the index segments {@link MergePolicy} defined by the specified {@link IndexConfig}. Merged segments are
+     * sorted in the default search order of the specified {@link RowMapper}, if it doesn't depend on custom
+     * comparators.
+     *
+     * @param config    An {@link IndexConfig}.
+     * @param rowMapper A {@link RowMapper}.
+     * @return The {@link MergePolicy} defined by {@code config}.
+     */
+    private static MergePolicy mergePolicy(IndexConfig config, RowMapper rowMapper) {
+        TieredMergePolicy mergePolicy = new TieredMergePolicy();
+        mergePolicy.setSegmentsPerTier(config.getMergeSegmentsPerTier());
+        mergePolicy.setMaxMergedSegmentMB(config.getMergeMaxSegmentMB());
+        mergePolicy.setForceMergeDeletesPctAllowed(config.getMergeDeletesPctAllowed());
+        mergePolicy.setFloorSegmentMB(config.getMergeFloorSegmentMB());
+        switch (config.getCompoundFile()) {
+            case ALWAYS:
+                mergePolicy.setNoCFSRatio(1.0);
+                break;
+            case NEVER:
+                mergePolicy.setNoCFSRatio(0.0);
+                break;
+            case AUTO:
+                int maxSegmentMB = config.getCompoundFileMaxSegmentMB();
+                mergePolicy.setNoCFSRatio(config.getCompoundFileRatio());
+                mergePolicy.setMaxCFSSegmentSizeMB(maxSegmentMB > 0 ? maxSegmentMB : Double.POSITIVE_INFINITY);
+                break;
+            default:
+                throw new IndexException("Unsupported compound file policy %s", config.getCompoundFile());
+        }
+        SortField[] sortFields = rowMapper.sortFields();
+        for (SortField sortField : sortFields) {
+            if (sortField.getType() == SortField.Type.CUSTOM) {
+                return mergePolicy;
+            }
+        }
+        return new SortingMergePolicy(mergePolicy, new Sort(sortFields));
+    }
+
+    /**
+     * Returns the index segments {@link MergeScheduler} defined by the specified {@link IndexConfig}.
+     *
+     * @param config An {@link IndexConfig}.
+     * @return The {@link MergeScheduler} defined by {@code config}.
+     */
+    private static MergeScheduler mergeScheduler(IndexConfig config) {
+        double mergeMBPerSec = config.getMergeMBPerSec();
+        ConcurrentMergeScheduler mergeScheduler = mergeMBPerSec > 0 ?
+                                                  new ThrottledMergeScheduler(mergeMBPerSec) :
+                                                  new ConcurrentMergeScheduler();
+        int mergeThreads = config.getMergeThreads();
+        if (mergeThreads > 0) {
+            int mergeMaxCount = config.getMergeMaxCount();
+            mergeScheduler.setMaxMergesAndThreads(mergeMaxCount > 0 ? mergeMaxCount : mergeThreads + 5, mergeThreads);
+        }
+        return mergeScheduler;
     }
 
     /**
@@ -128,6 +276,16 @@ public abstract class RowService {
         return schema;
     }
 
+    /**
+     * Returns the {@link Search} represented by the specified JSON UTF-8 bytes.
+     *
+     * @param json The JSON UTF-8 bytes representing a {@link Search}.
+     * @return The {@link Search} represented by {@code json}.
+     */
+    public final Search search(ByteBuffer json) {
+        return searchCache.get(json);
+    }
+
     /**
      * Returns the names of the document fields to be loaded when reading a Lucene index.
      *
@@ -139,7 +297,7 @@ public abstract class RowService {
      * Indexes the logical {@link Row} identified by the specified key and column family using the specified time stamp.
      * The may require reading from the base {@link ColumnFamilyStore} because it could exist previously having more
      * columns than the specified ones. The specified {@link ColumnFamily} is used for determine the cluster key. This
-     * operation is performed asynchronously.
+     * operation is performed asynchronously if there is an indexing queue.
      *
      * @param key          A partition key.
      * @param columnFamily A {@link ColumnFamily} with a single common cluster key.
@@ -156,12 +314,89 @@ public abstract class RowService {
      */
     public abstract void delete(DecoratedKey partitionKey) throws IOException;
 
+    /**
+     * Upserts the Lucene {@link Document}s represented by the specified Cassandra row. If there is an indexing queue
+     * the {@link Document}s are built and written asynchronously, otherwise they are written before returning.
+     *
+     * @param partitionKey A partition key.
+     * @param columnFamily A column family.
+     * @param timestamp    The operation time.
+     * @throws IOException If there are I/O errors.
+     */
+    protected final void upsert(final DecoratedKey partitionKey, final ColumnFamily columnFamily, final long timestamp)
+    throws IOException {
+        if (indexingQueue == null) {
+            luceneIndex.upsert(documents(partitionKey, columnFamily, timestamp));
+        } else {
+            indexingQueue.upsert(partitionKey, new Callable<Map<Term, Document>>() {
+                @Override
+                public Map<Term, Document> call() {
+                    return documents(partitionKey, columnFamily, timestamp);
+                }
+            });
+        }
+    }
+
+    /**
+     * Deletes all the {@link Document}s containing the specified {@link Term}, asynchronously if there is an indexing
+     * queue.
+     *
+     * @param partitionKey The partition key of the deleted documents, used for ordering the indexing operations.
+     * @param term         The {@link Term} to identify the documents to be deleted.
+     * @throws IOException If there are I/O errors.
+     */
+    protected final void delete(DecoratedKey partitionKey, final Term term) throws IOException {
+        if (indexingQueue == null) {
+            luceneIndex.delete(term);
+        } else {
+            indexingQueue.execute(partitionKey, new Callable<Void>() {
+                @Override
+                public Void call() throws IOException {
+                    luceneIndex.delete(term);
+                    return null;
+                }
+            });
+        }
+    }
+
+    /**
+     * Deletes all the {@link Document}s satisfying the specified {@link Query}, asynchronously if there is an indexing
+     * queue.
+     *
+     * @param partitionKey The partition key of the deleted documents, used for ordering the indexing operations.
+     * @param query        The {@link Query} to identify the documents to be deleted.
+     * @throws IOException If there are I/O errors.
+     */
+    protected final void delete(DecoratedKey partitionKey, final Query query) throws IOException {
+        if (indexingQueue == null) {
+            luceneIndex.delete(query);
+        } else {
+            indexingQueue.execute(partitionKey, new Callable<Void>() {
+                @Override
+                public Void call() throws IOException {
+                    luceneIndex.delete(query);
+                    return null;
+                }
+            });
+        }
+    }
+
+    /**
+     * Waits until all the queued indexing operations have been applied, if there is an indexing queue.
+     */
+    private void awaitIndexing() {
+        if (indexingQueue != null) {
+            indexingQueue.await();
+        }
+    }
+
     /**
      * Deletes all the {@link Document}s.
      *
      * @throws IOException If there are I/O errors.
      */
     public final void truncate() throws IOException {
+        awaitIndexing();
         luceneIndex.truncate();
     }
 
@@ -171,16 +406,24 @@ public abstract class RowService {
      * @throws IOException If there are I/O errors.
      */
     public final void delete() throws IOException {
+        if (indexingQueue != null) {
+            indexingQueue.close();
+        }
+        if (fetchExecutor != null) {
+            fetchExecutor.shutdown();
+        }
+        searchCache.close();
         luceneIndex.delete();
         schema.close();
     }
 
     /**
-     * Commits the pending changes. This operation is performed asynchronously.
+     * Commits the pending changes, waiting for the queued indexing operations to be applied.
      *
      * @throws IOException If there are I/O errors.
      */
     public final void commit() throws IOException {
+        awaitIndexing();
         luceneIndex.commit();
     }
 
@@ -202,18 +445,23 @@ public abstract class RowService {
      * @param search      The {@link Search} to be performed.
      * @param expressions A list of filtering {@link IndexExpression}s to be satisfied.
      * @param dataRange   A {@link DataRange} to be satisfied.
+     * @param ranges      The row ranges to be satisfied inside {@code dataRange}, maybe {@code null} meaning all.
      * @param limit       The max number of {@link Row}s to be returned.
      * @param timestamp   The operation time stamp.
      * @param after       A {@link RowKey} to start the search after.
+     * @param keysOnly    If the returned {@link Row}s should contain only their keys and score, without reading them
+     *                    from Cassandra. Filtering {@link IndexExpression}s are not supported in this mode.
      * @return The {@link Row}s satisfying the specified restrictions.
      * @throws IOException If there are I/O errors.
      */
     public final List<Row> search(Search search,
                                   List<IndexExpression> expressions,
                                   DataRange dataRange,
+                                  List<? extends AbstractBounds<RowPosition>> ranges,
                                   final int limit,
                                   long timestamp,
-                                  RowKey after) throws IOException {
+                                  RowKey after,
+                                  boolean keysOnly) throws IOException {
         Log.debug("Searching with search %s ", search);
 
         // Setup stats
@@ -224,14 +472,18 @@ public abstract class RowService {
         int numPages = 0;
         int numRows = 0;
 
-        List<Row> rows = new LinkedList<>();
+        List<Row> rows = new ArrayList<>();
 
         // Refresh index if needed
         if (search.refresh()) {
+            awaitIndexing();
             luceneIndex.refresh();
             if (search.isEmpty()) {
                 return rows;
             }
+        } else if (search.waitWrites()) {
+            awaitIndexing();
+            luceneIndex.waitForWrites();
         }
 
         SearcherManager searcherManager = luceneIndex.getSearcherManager();
@@ -239,7 +491,7 @@ public abstract class RowService {
         try {
 
             // Setup search arguments
-            Query query = query(search, dataRange);
+            Query query = query(search, dataRange, ranges);
             Sort sort = sort(search);
             ScoreDoc last = after(searcher, after, query, sort);
             int page = Math.min(limit, MAX_PAGE_SIZE);
@@ -249,29 +501,37 @@ public abstract class RowService {
                 // Search rows identifiers in Lucene
                 luceneTime.start();
                 Set<String> fields = fieldsToLoad();
-                Map<Document, ScoreDoc> docs = luceneIndex.search(searcher, query, sort, last, page, fields);
-                List<SearchResult> searchResults = new ArrayList<>(docs.size());
-                for (Map.Entry<Document, ScoreDoc> entry : docs.entrySet()) {
-                    Document document = entry.getKey();
-                    ScoreDoc scoreDoc = entry.getValue();
-                    last = scoreDoc;
-                    searchResults.add(rowMapper.searchResult(document, scoreDoc));
-                }
-                numDocs += searchResults.size();
+                DocumentIterator docs = luceneIndex.search(searcher, query, sort, last, page, fields);
                 luceneTime.stop();
 
-                // Collect rows from Cassandra
-                collectTime.start();
-                for (Row row : rows(searchResults, timestamp, search.usesRelevance())) {
-                    if (accepted(row, expressions)) {
-                        rows.add(row);
-                        numRows++;
+                // Collect rows from Cassandra in batches while the documents are lazily loaded
+                List<SearchResult> searchResults = new ArrayList<>(Math.min(docs.size(), FETCH_BATCH_SIZE));
+                while (docs.hasNext() && rows.size() < limit) {
+                    luceneTime.start();
+                    while (docs.hasNext() && searchResults.size() < FETCH_BATCH_SIZE) {
+                        Pair<Document, ScoreDoc> doc = docs.next();
+                        last = doc.right;
+                        searchResults.add(rowMapper.searchResult(doc.left, doc.right));
+                    }
+                    numDocs += searchResults.size();
+                    luceneTime.stop();
+
+                    collectTime.start();
+                    List<Row> collectedRows = keysOnly ?
+                                              keyRows(searchResults, timestamp) :
+                                              rows(searchResults, timestamp, search.usesRelevance());
+                    for (Row row : collectedRows) {
+                        if (accepted(row, expressions)) {
+                            rows.add(row);
+                            numRows++;
+                        }
                     }
+                    searchResults.clear();
+                    collectTime.stop();
                 }
-                collectTime.stop();
 
                 // Setup next iteration
-                maybeMore = searchResults.size() == page;
+                maybeMore = docs.size() == page;
                 page = Math.min(Math.max(FILTERING_PAGE_SIZE, numRows - limit), MAX_PAGE_SIZE);
                 numPages++;
 
@@ -283,8 +543,7 @@ public abstract class RowService {
         }
 
         // Ensure sorting
-        Comparator<Row> comparator = rowMapper.comparator(search);
-        Collections.sort(rows, comparator);
+        rows = rowMapper.sort(search, rows, false);
 
         searchTime.stop();
         Log.debug("Lucene time: %s", luceneTime);
@@ -300,14 +559,16 @@ public abstract class RowService {
      *
      * @param search    A {@link Search}.
      * @param dataRange A {@link DataRange}.
+     * @param ranges    The row ranges to be satisfied inside {@code dataRange}, maybe {@code null} meaning all.
      * @return The {@link Query} representation of the specified {@link Search} filtered by the specified {@link
      * DataRange}.
      */
-    public Query query(Search search, DataRange dataRange) {
+    public Query query(Search search, DataRange dataRange, List<? extends AbstractBounds<RowPosition>> ranges) {
         Query range = rowMapper.query(dataRange);
+        Query subRanges = ranges == null ? null : rowMapper.query(ranges);
         Query query = search.query(schema);
         Query filter = search.filter(schema);
-        if (query == null && filter == null && range == null) {
+        if (query == null && filter == null && range == null && subRanges == null) {
             return new MatchAllDocsQuery();
         }
         BooleanQuery booleanQuery = new BooleanQuery();
@@ -320,6 +581,9 @@ public abstract class RowService {
         if (range != null) {
             booleanQuery.add(range, FILTER);
         }
+        if (subRanges != null) {
+            booleanQuery.add(subRanges, FILTER);
+        }
         return booleanQuery;
     }
 
@@ -357,8 +621,8 @@ public abstract class RowService {
         Filter rowFilter = new QueryWrapperFilter(rowMapper.query(key));
         Query afterQuery = new FilteredQuery(query, rowFilter);
         Set<String> fields = Collections.emptySet();
-        Map<Document, ScoreDoc> results = luceneIndex.search(searcher, afterQuery, sort, null, 1, fields);
-        ScoreDoc scoreDoc = results.isEmpty() ? null : results.values().iterator().next();
+        DocumentIterator results = luceneIndex.search(searcher, afterQuery, sort, null, 1, fields);
+        ScoreDoc scoreDoc = results.hasNext() ? results.next().right : null;
         Log.debug("Search after time: %s", time.stop());
         return scoreDoc;
     }
@@ -448,6 +712,48 @@ public abstract class RowService {
         }
     }
 
+    /**
+     * Returns the number of tasks in which row fetching should be split, which is the number of fetching threads.
+     *
+     * @return The number of tasks in which row fetching should be split.
+     */
+    protected final int fetchParallelism() {
+        return fetchParallelism;
+    }
+
+    /**
+     * Invokes the specified row fetching tasks, concurrently if there is a fetch executor, and returns their results in
+     * the same order as the tasks.
+     *
+     * @param tasks The row fetching tasks to be invoked.
+     * @param <T>   The type of the task results.
+     * @return The results of the tasks, in the same order as the tasks.
+     */
+    protected final <T> List<T> fetch(List<Callable<T>> tasks) {
+        List<T> results = new ArrayList<>(tasks.size());
+        if (fetchExecutor == null || tasks.size() == 1) {
+            for (Callable<T> task : tasks) {
+                try {
+                    results.add(task.call());
+                } catch (Exception e) {
+                    throw new IndexException(e, "Error while fetching rows");
+                }
+            }
+        } else {
+            try {
+                for (Future<T> future : fetchExecutor.invokeAll(tasks)) {
+                    results.add(future.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IndexException(e, "Interrupted while fetching rows");
+            } catch (ExecutionException e) {
+                throw new IndexException(e.getCause(), "Error while fetching rows");
+            }
+        }
+        return results;
+    }
+
     /**
      * Returns the {@link Row}s identified by the specified {@link Document}s, using the specified time stamp to ignore
      * deleted columns. The {@link Row}s are retrieved from the storage engine, so it involves IO operations.
@@ -477,7 +783,8 @@ public abstract class RowService {
     }
 
     /**
-     * Adds to the specified {@link Row} the specified Lucene score column.
+     * Adds to the specified {@link Row} the specified Lucene score column. The {@link Row} column family is modified,
+     * so it should not be shared.
      *
      * @param row       A {@link Row}.
      * @param timestamp The score column timestamp.
@@ -487,14 +794,39 @@ public abstract class RowService {
     protected Row addScoreColumn(Row row, long timestamp, ScoreDoc scoreDoc) {
         ColumnFamily cf = row.cf;
         CellName cellName = rowMapper.makeCellName(cf);
-        Float score = Float.parseFloat(((FieldDoc) scoreDoc).fields[0].toString());
-        ByteBuffer cellValue = UTF8Type.instance.decompose(score.toString());
+        cf.addColumn(cellName, scoreValue(scoreDoc), timestamp);
+        return row;
+    }
 
-        ColumnFamily dcf = ArrayBackedSortedColumns.factory.create(baseCfs.metadata);
-        dcf.addColumn(cellName, cellValue, timestamp);
-        dcf.addAll(row.cf);
+    /**
+     * Returns the {@link Row}s identified by the specified {@link SearchResult}s, containing only the Lucene score
+     * column, without reading them from Cassandra. The score column name contains the clustering key, if any.
+     *
+     * @param searchResults The {@link SearchResult}s.
+     * @param timestamp     The score column timestamp.
+     * @return The {@link Row}s identified by the specified {@link SearchResult}s, containing only the score column.
+     */
+    private List<Row> keyRows(List<SearchResult> searchResults, long timestamp) {
+        List<Row> rows = new ArrayList<>(searchResults.size());
+        for (SearchResult searchResult : searchResults) {
+            ColumnFamily cf = ArrayBackedSortedColumns.factory.create(metadata);
+            CellName cellName = rowMapper.makeCellName(searchResult.getClusteringKey());
+            cf.addColumn(cellName, scoreValue(searchResult.getScoreDoc()), timestamp);
+            rows.add(new Row(searchResult.getPartitionKey(), cf));
+        }
+        return rows;
+    }
 
-        return new Row(row.key, dcf);
+    /**
+     * Returns the score column value for the specified {@link ScoreDoc}.
+     *
+     * @param scoreDoc A {@link ScoreDoc}.
+     * @return The score column value.
+     */
+    private static ByteBuffer scoreValue(ScoreDoc scoreDoc) {
+        Object value = ((FieldDoc) scoreDoc).fields[0];
+        Float score = value instanceof Float ? (Float) value : Float.parseFloat(value.toString());
+        return UTF8Type.instance.decompose(score.toString());
     }
 
     /**
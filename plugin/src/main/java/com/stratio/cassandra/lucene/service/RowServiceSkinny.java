@@ -16,6 +16,7 @@
 
 package com.stratio.cassandra.lucene.service;
 
+import com.google.common.collect.Lists;
 import com.stratio.cassandra.lucene.schema.column.Columns;
 import org.apache.cassandra.config.ColumnDefinition;
 import org.apache.cassandra.db.ColumnFamily;
@@ -31,10 +32,12 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 /**
  * {@link RowService} that manages simple rows.
@@ -82,10 +85,10 @@ public class RowServiceSkinny extends RowService {
         DecoratedKey partitionKey = rowMapper.partitionKey(key);
         if (columnFamily.iterator().hasNext()) {
             columnFamily = cleanExpired(columnFamily, timestamp);
-            luceneIndex.upsert(documents(partitionKey, columnFamily, timestamp));
+            upsert(partitionKey, columnFamily, timestamp);
         } else if (columnFamily.deletionInfo() != null) {
             Term term = rowMapper.term(partitionKey);
-            luceneIndex.delete(term);
+            delete(partitionKey, term);
         }
     }
 
@@ -93,7 +96,7 @@ public class RowServiceSkinny extends RowService {
     @Override
     public void delete(DecoratedKey partitionKey) throws IOException {
         Term term = rowMapper.term(partitionKey);
-        luceneIndex.delete(term);
+        delete(partitionKey, term);
     }
 
     /** {@inheritDoc} */
@@ -109,15 +112,52 @@ public class RowServiceSkinny extends RowService {
         return Collections.singletonMap(term, document);
     }
 
-    /** {@inheritDoc} */
+    /**
+     * {@inheritDoc}
+     *
+     * The rows are read in token order, split in as many chunks as fetching threads, and then returned in the same order
+     * as the specified {@link SearchResult}s.
+     */
     @Override
-    protected List<Row> rows(List<SearchResult> searchResults, long timestamp, boolean relevance) {
+    protected List<Row> rows(List<SearchResult> searchResults, final long timestamp, boolean relevance) {
+
+        // Sort partition keys by token to favour read locality
+        List<DecoratedKey> partitionKeys = new ArrayList<>(searchResults.size());
+        for (SearchResult searchResult : searchResults) {
+            partitionKeys.add(searchResult.getPartitionKey());
+        }
+        Collections.sort(partitionKeys);
+
+        // Read rows in chunks, concurrently if there are fetching threads
+        int chunkSize = Math.max(1, (partitionKeys.size() + fetchParallelism() - 1) / fetchParallelism());
+        List<Callable<Map<DecoratedKey, ColumnFamily>>> tasks = new ArrayList<>();
+        for (final List<DecoratedKey> chunk : Lists.partition(partitionKeys, chunkSize)) {
+            tasks.add(new Callable<Map<DecoratedKey, ColumnFamily>>() {
+                @Override
+                public Map<DecoratedKey, ColumnFamily> call() {
+                    Map<DecoratedKey, ColumnFamily> columnFamilies = new HashMap<>(chunk.size());
+                    for (DecoratedKey partitionKey : chunk) {
+                        ColumnFamily columnFamily = row(partitionKey, timestamp);
+                        if (columnFamily != null) {
+                            columnFamilies.put(partitionKey, columnFamily);
+                        }
+                    }
+                    return columnFamilies;
+                }
+            });
+        }
+        Map<DecoratedKey, ColumnFamily> columnFamilies = new HashMap<>(partitionKeys.size());
+        for (Map<DecoratedKey, ColumnFamily> result : fetch(tasks)) {
+            columnFamilies.putAll(result);
+        }
+
+        // Reassemble rows in search order
         List<Row> rows = new ArrayList<>(searchResults.size());
         for (SearchResult searchResult : searchResults) {
 
             // Extract row from document
             DecoratedKey partitionKey = searchResult.getPartitionKey();
-            ColumnFamily columnFamily = row(partitionKey, timestamp);
+            ColumnFamily columnFamily = columnFamilies.get(partitionKey);
             if (columnFamily == null) {
                 continue;
             }
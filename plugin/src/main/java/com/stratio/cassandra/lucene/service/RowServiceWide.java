@@ -38,6 +38,7 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
 
 /**
  * {@link RowService} that manages wide rows.
@@ -88,18 +89,18 @@ public class RowServiceWide extends RowService {
 
         if (columnFamily.iterator().hasNext()) {
             columnFamily = cleanExpired(columnFamily, timestamp);
-            luceneIndex.upsert(documents(partitionKey, columnFamily, timestamp));
+            upsert(partitionKey, columnFamily, timestamp);
         } else if (deletionInfo != null) {
             Iterator<RangeTombstone> iterator = deletionInfo.rangeIterator();
             if (iterator.hasNext()) {
                 while (iterator.hasNext()) {
                     RangeTombstone rangeTombstone = iterator.next();
                     Query query = rowMapper.query(partitionKey, rangeTombstone);
-                    luceneIndex.delete(query);
+                    delete(partitionKey, query);
                 }
             } else {
                 Term term = rowMapper.term(partitionKey);
-                luceneIndex.delete(term);
+                delete(partitionKey, term);
             }
         }
     }
@@ -108,7 +109,7 @@ public class RowServiceWide extends RowService {
     @Override
     public void delete(DecoratedKey partitionKey) throws IOException {
         Term term = rowMapper.term(partitionKey);
-        luceneIndex.delete(term);
+        delete(partitionKey, term);
     }
 
     /** {@inheritDoc} */
@@ -150,20 +151,18 @@ public class RowServiceWide extends RowService {
     /**
      * {@inheritDoc}
      *
-     * The {@link Row} is a logical one.
+     * The {@link Row} is a logical one. The rows are read with a task per partition and chunk of clustering keys,
+     * concurrently if there are fetching threads, and then returned in the same order as the specified {@link
+     * SearchResult}s.
      */
     @Override
-    protected List<Row> rows(List<SearchResult> searchResults, long timestamp, boolean relevance) {
+    protected List<Row> rows(List<SearchResult> searchResults, final long timestamp, boolean relevance) {
 
         // Group key queries by partition keys
-        Map<String, ScoreDoc> scoresByClusteringKey = new HashMap<>(searchResults.size());
-        Map<DecoratedKey, List<CellName>> keys = new HashMap<>();
+        Map<DecoratedKey, List<CellName>> keys = new LinkedHashMap<>();
         for (SearchResult searchResult : searchResults) {
             DecoratedKey partitionKey = searchResult.getPartitionKey();
             CellName clusteringKey = searchResult.getClusteringKey();
-            ScoreDoc scoreDoc = searchResult.getScoreDoc();
-            String rowHash = rowMapper.hash(partitionKey, clusteringKey);
-            scoresByClusteringKey.put(rowHash, scoreDoc);
             List<CellName> clusteringKeys = keys.get(partitionKey);
             if (clusteringKeys == null) {
                 clusteringKeys = new ArrayList<>();
@@ -172,24 +171,42 @@ public class RowServiceWide extends RowService {
             clusteringKeys.add(clusteringKey);
         }
 
-        List<Row> rows = new ArrayList<>(searchResults.size());
+        // Read partition slices, concurrently if there are fetching threads
+        List<Callable<Map<String, Row>>> tasks = new ArrayList<>();
         for (Map.Entry<DecoratedKey, List<CellName>> entry : keys.entrySet()) {
-            DecoratedKey partitionKey = entry.getKey();
-            for (List<CellName> clusteringKeys : Lists.partition(entry.getValue(), 1000)) {
-                Map<CellName, ColumnFamily> partitionRows = rows(partitionKey, clusteringKeys, timestamp);
-                for (Map.Entry<CellName, ColumnFamily> entry1 : partitionRows.entrySet()) {
-                    CellName clusteringKey = entry1.getKey();
-                    ColumnFamily columnFamily = entry1.getValue();
-                    Row row = new Row(partitionKey, columnFamily);
-                    if (relevance) {
-                        String rowHash = rowMapper.hash(partitionKey, clusteringKey);
-                        ScoreDoc scoreDoc = scoresByClusteringKey.get(rowHash);
-                        row = addScoreColumn(row, timestamp, scoreDoc);
+            final DecoratedKey partitionKey = entry.getKey();
+            for (final List<CellName> clusteringKeys : Lists.partition(entry.getValue(), 1000)) {
+                tasks.add(new Callable<Map<String, Row>>() {
+                    @Override
+                    public Map<String, Row> call() {
+                        Map<CellName, ColumnFamily> partitionRows = rows(partitionKey, clusteringKeys, timestamp);
+                        Map<String, Row> rows = new LinkedHashMap<>(partitionRows.size());
+                        for (Map.Entry<CellName, ColumnFamily> entry : partitionRows.entrySet()) {
+                            String rowHash = rowMapper.hash(partitionKey, entry.getKey());
+                            rows.put(rowHash, new Row(partitionKey, entry.getValue()));
+                        }
+                        return rows;
                     }
-                    rows.add(row);
-                }
+                });
             }
         }
+        Map<String, Row> rowsByHash = new LinkedHashMap<>(searchResults.size());
+        for (Map<String, Row> partitionRows : fetch(tasks)) {
+            rowsByHash.putAll(partitionRows);
+        }
+
+        // Reassemble rows in search order, followed by any other read row if there are no scores to add
+        List<Row> rows = new ArrayList<>(rowsByHash.size());
+        for (SearchResult searchResult : searchResults) {
+            String rowHash = rowMapper.hash(searchResult.getPartitionKey(), searchResult.getClusteringKey());
+            Row row = rowsByHash.remove(rowHash);
+            if (row != null) {
+                rows.add(relevance ? addScoreColumn(row, timestamp, searchResult.getScoreDoc()) : row);
+            }
+        }
+        if (!relevance) {
+            rows.addAll(rowsByHash.values());
+        }
         return rows;
     }
 
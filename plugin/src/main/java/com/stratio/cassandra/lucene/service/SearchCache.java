@@ -0,0 +1,122 @@
+/*
+ * Copyright 2015, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.cassandra.lucene.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.stratio.cassandra.lucene.search.Search;
+import com.stratio.cassandra.lucene.search.SearchBuilder;
+import com.stratio.cassandra.lucene.util.Log;
+import org.apache.cassandra.db.marshal.UTF8Type;
+import org.apache.cassandra.utils.ByteBufferUtil;
+
+import javax.management.MBeanException;
+import javax.management.ObjectName;
+import javax.management.OperationsException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+
+/**
+ * Bounded concurrent cache of parsed {@link Search}es, keyed by their raw JSON bytes. {@link Search}es are immutable,
+ * so the same instance can be shared by all the concurrent requests of a same query.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class SearchCache implements SearchCacheMBean {
+
+    /** The default max number of cached {@link Search}es. */
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    private final Cache<ByteBuffer, Search> cache;
+
+    private ObjectName objectName;
+
+    /**
+     * Builds a new {@link SearchCache} for the specified index.
+     *
+     * @param keyspace The keyspace name.
+     * @param table    The table name.
+     * @param name     The index name.
+     * @param maxSize  The max number of cached {@link Search}es.
+     */
+    public SearchCache(String keyspace, String table, String name, int maxSize) {
+        cache = CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().build();
+
+        // Register JMX MBean
+        try {
+            objectName = new ObjectName(String.format(
+                    "com.stratio.cassandra.lucene:type=SearchCaches,keyspace=%s,table=%s,index=%s",
+                    keyspace,
+                    table,
+                    name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        } catch (MBeanException | OperationsException e) {
+            Log.error(e, "Error while registering MBean");
+        }
+    }
+
+    /**
+     * Returns the {@link Search} represented by the specified JSON UTF-8 bytes, parsing it only if it is not cached.
+     *
+     * @param json The JSON UTF-8 bytes representing a {@link Search}.
+     * @return The {@link Search} represented by {@code json}.
+     */
+    public Search get(ByteBuffer json) {
+        Search search = cache.getIfPresent(json);
+        if (search == null) {
+            search = SearchBuilder.fromJson(UTF8Type.instance.compose(json)).build();
+            cache.put(ByteBufferUtil.clone(json), search); // Don't retain the request buffer
+        }
+        return search;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getSize() {
+        return cache.size();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Removes all the cached {@link Search}es and unregisters the MBean.
+     */
+    public void close() {
+        cache.invalidateAll();
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (MBeanException | OperationsException e) {
+            Log.error(e, "Error while removing MBean");
+        }
+    }
+}
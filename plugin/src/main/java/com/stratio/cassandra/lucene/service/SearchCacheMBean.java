@@ -0,0 +1,50 @@
+/*
+ * Copyright 2015, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.cassandra.lucene.service;
+
+/**
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public interface SearchCacheMBean {
+
+    /**
+     * Returns the number of {@link com.stratio.cassandra.lucene.search.Search}es that have been served by the cache.
+     *
+     * @return The number of cache hits.
+     */
+    long getHitCount();
+
+    /**
+     * Returns the number of {@link com.stratio.cassandra.lucene.search.Search}es that have been parsed due to not being
+     * in the cache.
+     *
+     * @return The number of cache misses.
+     */
+    long getMissCount();
+
+    /**
+     * Returns the number of {@link com.stratio.cassandra.lucene.search.Search}es in the cache.
+     *
+     * @return The number of cached searches.
+     */
+    long getSize();
+
+    /**
+     * Removes all the cached {@link com.stratio.cassandra.lucene.search.Search}es.
+     */
+    void clear();
+}
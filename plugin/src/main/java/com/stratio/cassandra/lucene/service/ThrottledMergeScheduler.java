@@ -0,0 +1,100 @@
+/*
+ * Copyright 2015, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.cassandra.lucene.service;
+
+import org.apache.lucene.index.ConcurrentMergeScheduler;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.MergePolicy.OneMerge;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * {@link ConcurrentMergeScheduler} limiting the write rate of every merge, including small and forced ones, to a max
+ * number of MB per second. This prevents index merges from competing for disk bandwidth with Cassandra compactions
+ * beyond that rate. Below the limit, the adaptive merge I/O throttling works as usual.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class ThrottledMergeScheduler extends ConcurrentMergeScheduler {
+
+    private final double maxMBPerSec;
+    private final Map<MergeThread, OneMerge> merges = new HashMap<>();
+
+    /**
+     * Builds a new {@link ThrottledMergeScheduler} limiting merges to the specified write rate.
+     *
+     * @param maxMBPerSec The max write rate of each merge in MB per second.
+     */
+    public ThrottledMergeScheduler(double maxMBPerSec) {
+        this.maxMBPerSec = maxMBPerSec;
+        targetMBPerSec = Math.min(targetMBPerSec, maxMBPerSec);
+        setForceMergeMBPerSec(maxMBPerSec);
+    }
+
+    /**
+     * Returns the max write rate of each merge in MB per second.
+     *
+     * @return The max write rate of each merge in MB per second.
+     */
+    public double getMaxMBPerSec() {
+        return maxMBPerSec;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected synchronized MergeThread getMergeThread(IndexWriter writer, OneMerge merge) throws IOException {
+        MergeThread mergeThread = super.getMergeThread(writer, merge);
+        merges.put(mergeThread, merge);
+        clamp(merge); // The merge thread hasn't been started yet
+        return mergeThread;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected synchronized void updateMergeThreads() {
+        super.updateMergeThreads();
+        Iterator<Map.Entry<MergeThread, OneMerge>> iterator = merges.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<MergeThread, OneMerge> entry = iterator.next();
+            if (!entry.getKey().isAlive()) {
+                iterator.remove();
+            } else {
+                clamp(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Limits the write rate of the specified merge to the max number of MB per second.
+     *
+     * @param merge A merge.
+     */
+    private void clamp(OneMerge merge) {
+        if (merge.rateLimiter.getMBPerSec() > maxMBPerSec) {
+            merge.rateLimiter.setMBPerSec(maxMBPerSec);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected synchronized void targetMBPerSecChanged() {
+        targetMBPerSec = Math.min(targetMBPerSec, maxMBPerSec);
+    }
+}
@@ -20,14 +20,18 @@ import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.DecoratedKey;
 import org.apache.cassandra.db.Row;
 import org.apache.cassandra.db.RowPosition;
+import org.apache.cassandra.dht.AbstractBounds;
 import org.apache.cassandra.dht.IPartitioner;
 import org.apache.cassandra.dht.Murmur3Partitioner;
 import org.apache.cassandra.dht.Token;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.SortField;
 
 import java.util.Comparator;
+import java.util.List;
 
 /**
  * Class for several row partitioning {@link Token} mappings between Cassandra and Lucene.
@@ -46,6 +50,8 @@ public abstract class TokenMapper {
         IPartitioner partitioner = DatabaseDescriptor.getPartitioner();
         if (partitioner instanceof Murmur3Partitioner) {
             return new TokenMapperMurmur();
+        } else if (TokenMapperOrdered.supports(partitioner)) {
+            return new TokenMapperOrdered();
         } else {
             return new TokenMapperGeneric();
         }
@@ -77,6 +83,30 @@ public abstract class TokenMapper {
         }
     }
 
+    /**
+     * Returns a Lucene {@link Query} for retrieving the documents inside any of the specified row ranges. Only the
+     * tokens of the range bounds are considered, so the returned query is a superset of the ranges when they are
+     * bounded by partition keys.
+     *
+     * @param ranges A list of row ranges.
+     * @return A Lucene {@link Query} for retrieving the documents inside any of the specified row ranges, or {@code
+     * null} if any of the ranges contains all the tokens.
+     */
+    public Query query(List<? extends AbstractBounds<RowPosition>> ranges) {
+        BooleanQuery query = new BooleanQuery();
+        for (AbstractBounds<RowPosition> range : ranges) {
+            Query rangeQuery = query(range.left.getToken(),
+                                     range.right.getToken(),
+                                     includeStart(range.left),
+                                     includeStop(range.right));
+            if (rangeQuery == null) {
+                return null;
+            }
+            query.add(rangeQuery, BooleanClause.Occur.SHOULD);
+        }
+        return query;
+    }
+
     /**
      * Returns {@code true} if the specified {@link Token} is the minimum accepted by the {@link IPartitioner}, {@code
      * false} otherwise.
@@ -59,10 +59,8 @@ public class TokenMapperGeneric extends TokenMapper {
     /** {@inheritDoc} */
     @Override
     public void addFields(Document document, DecoratedKey partitionKey) {
-        ByteBuffer bb = factory.toByteArray(partitionKey.getToken());
-        String serialized = ByteBufferUtils.toString(bb);
-        BytesRef bytesRef = new BytesRef(serialized);
-        document.add(new StringField(FIELD_NAME, serialized, Store.NO));
+        BytesRef bytesRef = bytesRef(partitionKey.getToken());
+        document.add(new StringField(FIELD_NAME, bytesRef, Store.NO));
         document.add(new SortedDocValuesField(FIELD_NAME, bytesRef));
     }
 
@@ -104,8 +102,7 @@ public class TokenMapperGeneric extends TokenMapper {
      * @return The Cassandra {@link Token} represented by the specified Lucene {@link BytesRef}.
      */
     Token token(BytesRef bytesRef) {
-        String string = bytesRef.utf8ToString();
-        ByteBuffer bb = ByteBufferUtils.fromString(string);
+        ByteBuffer bb = ByteBufferUtils.byteBuffer(bytesRef);
         return factory.fromByteArray(bb);
     }
 
@@ -117,8 +114,7 @@ public class TokenMapperGeneric extends TokenMapper {
      */
     public BytesRef bytesRef(Token token) {
         ByteBuffer bb = factory.toByteArray(token);
-        byte[] bytes = ByteBufferUtils.asArray(bb);
-        return new BytesRef(bytes);
+        return ByteBufferUtils.bytesRef(bb);
     }
 
 }
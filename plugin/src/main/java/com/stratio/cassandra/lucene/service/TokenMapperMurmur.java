@@ -17,6 +17,8 @@
 package com.stratio.cassandra.lucene.service;
 
 import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.RowPosition;
+import org.apache.cassandra.dht.AbstractBounds;
 import org.apache.cassandra.dht.Token;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.FieldType;
@@ -27,6 +29,9 @@ import org.apache.lucene.search.NumericRangeQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.SortField;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * {@link PartitionKeyMapper} to be used when {@link org.apache.cassandra.dht.Murmur3Partitioner} is used. It indexes
  * the token long value as a Lucene long field.
@@ -88,6 +93,39 @@ public class TokenMapperMurmur extends TokenMapper {
         return NumericRangeQuery.newLongRange(FIELD_NAME, start, stop, includeLower, includeUpper);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * The ranges are evaluated in a single pass over the token doc values.
+     */
+    @Override
+    public Query query(List<? extends AbstractBounds<RowPosition>> ranges) {
+        List<long[]> tokenRanges = new ArrayList<>(ranges.size());
+        for (AbstractBounds<RowPosition> range : ranges) {
+            Token lower = range.left.getToken();
+            Token upper = range.right.getToken();
+            if (lower.isMinimum() && upper.isMinimum()) {
+                return null;
+            }
+            long start = lower.isMinimum() ? Long.MIN_VALUE : (Long) lower.getTokenValue();
+            long stop = upper.isMinimum() ? Long.MAX_VALUE : (Long) upper.getTokenValue();
+            if (!lower.isMinimum() && !includeStart(range.left)) {
+                if (start == Long.MAX_VALUE) {
+                    continue;
+                }
+                start++;
+            }
+            if (!upper.isMinimum() && !includeStop(range.right)) {
+                if (stop == Long.MIN_VALUE) {
+                    continue;
+                }
+                stop--;
+            }
+            tokenRanges.add(new long[]{start, stop});
+        }
+        return new TokenRangesQuery(FIELD_NAME, tokenRanges);
+    }
+
     /** {@inheritDoc} */
     @Override
     public SortField[] sortFields() {
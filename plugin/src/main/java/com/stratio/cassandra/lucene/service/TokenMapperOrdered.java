@@ -0,0 +1,134 @@
+/*
+ * Copyright 2015, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.cassandra.lucene.service;
+
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.dht.ByteOrderedPartitioner;
+import org.apache.cassandra.dht.IPartitioner;
+import org.apache.cassandra.dht.OrderPreservingPartitioner;
+import org.apache.cassandra.dht.RandomPartitioner;
+import org.apache.cassandra.dht.Token;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TermRangeQuery;
+import org.apache.lucene.util.BytesRef;
+
+import java.math.BigInteger;
+
+/**
+ * {@link TokenMapper} to be used with {@link ByteOrderedPartitioner}, {@link RandomPartitioner} and {@link
+ * OrderPreservingPartitioner}. It indexes the token as a binary value whose unsigned lexicographic order is the same as
+ * the token order, so token ranges are plain term ranges seeking to the lower bound and stopping at the upper bound.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class TokenMapperOrdered extends TokenMapper {
+
+    /** The Lucene field name. */
+    public static final String FIELD_NAME = "_token_ordered";
+
+    /** The number of bytes of the encoded {@link RandomPartitioner} tokens. */
+    private static final int BIG_INTEGER_BYTES = 16;
+
+    /** Returns a new {@link TokenMapperOrdered}. */
+    public TokenMapperOrdered() {
+        super();
+    }
+
+    /**
+     * Returns if the specified {@link IPartitioner} tokens can be mapped by a {@link TokenMapperOrdered}.
+     *
+     * @param partitioner A {@link IPartitioner}.
+     * @return {@code true} if the partitioner is supported, {@code false} otherwise.
+     */
+    public static boolean supports(IPartitioner partitioner) {
+        return partitioner instanceof ByteOrderedPartitioner ||
+               partitioner instanceof RandomPartitioner ||
+               partitioner instanceof OrderPreservingPartitioner;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void addFields(Document document, DecoratedKey partitionKey) {
+        BytesRef bytesRef = bytesRef(partitionKey.getToken());
+        document.add(new StringField(FIELD_NAME, bytesRef, Store.NO));
+        document.add(new SortedDocValuesField(FIELD_NAME, bytesRef));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected Query makeQuery(Token lower, Token upper, boolean includeLower, boolean includeUpper) {
+        BytesRef start = lower == null || lower.isMinimum() ? null : bytesRef(lower);
+        BytesRef stop = upper == null || upper.isMinimum() ? null : bytesRef(upper);
+        if (start == null && stop == null) {
+            return null;
+        }
+        return new TermRangeQuery(FIELD_NAME, start, stop, includeLower, includeUpper);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Query query(Token token) {
+        Term term = new Term(FIELD_NAME, bytesRef(token));
+        return new TermQuery(term);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public SortField[] sortFields() {
+        return new SortField[]{new SortField(FIELD_NAME, SortField.Type.STRING)};
+    }
+
+    /**
+     * Returns the order preserving Lucene {@link BytesRef} representation of the specified Cassandra {@link Token}.
+     *
+     * {@link ByteOrderedPartitioner} tokens are already unsigned byte arrays. {@link RandomPartitioner} tokens, which
+     * go from -1 to 2^127, are shifted to be non negative and written as fixed size big-endian integers. {@link
+     * OrderPreservingPartitioner} tokens are compared as UTF-16 strings, so they are written as big-endian chars.
+     *
+     * @param token A Cassandra {@link Token}.
+     * @return The order preserving Lucene {@link BytesRef} representation of {@code token}.
+     */
+    static BytesRef bytesRef(Token token) {
+        Object value = token.getTokenValue();
+        if (value instanceof byte[]) {
+            return new BytesRef(((byte[]) value).clone());
+        } else if (value instanceof BigInteger) {
+            byte[] bigEndian = ((BigInteger) value).add(BigInteger.ONE).toByteArray();
+            byte[] bytes = new byte[BIG_INTEGER_BYTES];
+            int length = Math.min(bigEndian.length, BIG_INTEGER_BYTES);
+            System.arraycopy(bigEndian, bigEndian.length - length, bytes, BIG_INTEGER_BYTES - length, length);
+            return new BytesRef(bytes);
+        } else if (value instanceof String) {
+            String string = (String) value;
+            byte[] bytes = new byte[string.length() * 2];
+            for (int i = 0; i < string.length(); i++) {
+                char c = string.charAt(i);
+                bytes[2 * i] = (byte) (c >>> 8);
+                bytes[2 * i + 1] = (byte) c;
+            }
+            return new BytesRef(bytes);
+        }
+        throw new IllegalArgumentException("Unsupported token " + token);
+    }
+}
@@ -16,6 +16,7 @@
 
 package com.stratio.cassandra.lucene.service;
 
+import com.google.common.base.Objects;
 import org.apache.cassandra.dht.Token;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.lucene.index.FilteredTermsEnum;
@@ -78,6 +79,32 @@ public class TokenQuery extends MultiTermQuery {
         return new TokenDataRangeFilteredTermsEnum(termsEnum);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass() || !super.equals(o)) {
+            return false;
+        }
+        TokenQuery that = (TokenQuery) o;
+        return tokenMapper == that.tokenMapper &&
+               includeLower == that.includeLower &&
+               includeUpper == that.includeUpper &&
+               Objects.equal(lower, that.lower) &&
+               Objects.equal(upper, that.upper);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int hashCode() {
+        int result = super.hashCode();
+        result = 31 * result + System.identityHashCode(tokenMapper);
+        result = 31 * result + Objects.hashCode(lower, upper, includeLower, includeUpper);
+        return result;
+    }
+
     /** {@inheritDoc} */
     @Override
     public String toString(String field) {
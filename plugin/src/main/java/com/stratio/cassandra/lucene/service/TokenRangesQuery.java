@@ -0,0 +1,175 @@
+/*
+ * Copyright 2015, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.cassandra.lucene.service;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.RandomAccessWeight;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.Bits;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * {@link Query} for retrieving the documents whose long token is inside any of several token ranges. The ranges are
+ * sorted and coalesced when the query is built, and they are evaluated in a single pass over the numeric doc values,
+ * looking for the range containing each document token with a binary search.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class TokenRangesQuery extends Query {
+
+    /** The name of the field containing the long token in numeric doc values. */
+    private final String field;
+
+    /** The inclusive lower bounds of the sorted disjoint ranges. */
+    private final long[] mins;
+
+    /** The inclusive upper bounds of the sorted disjoint ranges. */
+    private final long[] maxs;
+
+    /**
+     * Builds a new {@link TokenRangesQuery}.
+     *
+     * @param field  The name of the field containing the long token in numeric doc values.
+     * @param ranges The inclusive ranges of accepted tokens as pairs of {@code long}s, in any order.
+     */
+    public TokenRangesQuery(String field, List<long[]> ranges) {
+        this.field = field;
+        List<long[]> sorted = new ArrayList<>(ranges);
+        Collections.sort(sorted, new Comparator<long[]>() {
+            @Override
+            public int compare(long[] o1, long[] o2) {
+                return Long.compare(o1[0], o2[0]);
+            }
+        });
+        List<long[]> merged = new ArrayList<>(sorted.size());
+        for (long[] range : sorted) {
+            if (range[0] > range[1]) {
+                continue; // Empty range
+            }
+            long[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && (last[1] == Long.MAX_VALUE || range[0] <= last[1] + 1)) {
+                last[1] = Math.max(last[1], range[1]);
+            } else {
+                merged.add(new long[]{range[0], range[1]});
+            }
+        }
+        mins = new long[merged.size()];
+        maxs = new long[merged.size()];
+        for (int i = 0; i < merged.size(); i++) {
+            mins[i] = merged.get(i)[0];
+            maxs[i] = merged.get(i)[1];
+        }
+    }
+
+    /**
+     * Returns the number of disjoint ranges after coalescing the adjacent and overlapping ones.
+     *
+     * @return The number of disjoint ranges.
+     */
+    public int size() {
+        return mins.length;
+    }
+
+    /**
+     * Returns if the specified token is inside any of the ranges.
+     *
+     * @param token A long token.
+     * @return {@code true} if {@code token} is inside any of the ranges, {@code false} otherwise.
+     */
+    public boolean contains(long token) {
+        int index = Arrays.binarySearch(mins, token);
+        if (index >= 0) {
+            return true;
+        }
+        int range = -index - 2; // The last range starting before the token
+        return range >= 0 && token <= maxs[range];
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Weight createWeight(IndexSearcher searcher, boolean needsScores) throws IOException {
+        return new RandomAccessWeight(this) {
+            @Override
+            protected Bits getMatchingDocs(final LeafReaderContext context) throws IOException {
+                if (mins.length == 0) {
+                    return null;
+                }
+                final NumericDocValues values = DocValues.getNumeric(context.reader(), field);
+                return new Bits() {
+                    @Override
+                    public boolean get(int doc) {
+                        return contains(values.get(doc));
+                    }
+
+                    @Override
+                    public int length() {
+                        return context.reader().maxDoc();
+                    }
+                };
+            }
+        };
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass() || !super.equals(o)) {
+            return false;
+        }
+        TokenRangesQuery that = (TokenRangesQuery) o;
+        return field.equals(that.field) && Arrays.equals(mins, that.mins) && Arrays.equals(maxs, that.maxs);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int hashCode() {
+        int result = super.hashCode();
+        result = 31 * result + field.hashCode();
+        result = 31 * result + Arrays.hashCode(mins);
+        result = 31 * result + Arrays.hashCode(maxs);
+        return result;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString(String field) {
+        StringBuilder sb = new StringBuilder();
+        if (!this.field.equals(field)) {
+            sb.append(this.field).append(':');
+        }
+        for (int i = 0; i < mins.length; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append('[').append(mins[i]).append(" TO ").append(maxs[i]).append(']');
+        }
+        return sb.toString();
+    }
+}
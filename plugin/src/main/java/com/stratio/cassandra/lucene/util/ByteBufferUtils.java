@@ -20,6 +20,7 @@ import org.apache.cassandra.db.marshal.AbstractType;
 import org.apache.cassandra.db.marshal.CompositeType;
 import org.apache.cassandra.utils.ByteBufferUtil;
 import org.apache.cassandra.utils.Hex;
+import org.apache.lucene.util.BytesRef;
 
 import java.nio.ByteBuffer;
 import java.util.List;
@@ -101,25 +102,28 @@ public final class ByteBufferUtils {
     }
 
     /**
-     * Returns a {@code String} representation of {@code byteBuffer}.
+     * Returns a Lucene {@link BytesRef} with a copy of the content of the specified {@link ByteBuffer}, without
+     * modifying it. The content is copied because Lucene may retain the {@link BytesRef}, as it happens with the
+     * buffered deletion terms.
      *
-     * @param byteBuffer the {@link ByteBuffer} to be converted to {@link String}.
-     * @return a {@code String} representation of {@code byteBuffer}.
+     * @param byteBuffer the {@link ByteBuffer} to be converted to {@link BytesRef}.
+     * @return the {@link BytesRef} representation of {@code byteBuffer}.
      */
-    public static String toString(ByteBuffer byteBuffer) {
-        return Base256Serializer.string(byteBuffer);
+    public static BytesRef bytesRef(ByteBuffer byteBuffer) {
+        byte[] bytes = new byte[byteBuffer.remaining()];
+        byteBuffer.duplicate().get(bytes);
+        return new BytesRef(bytes);
     }
 
     /**
-     * Returns the {@link ByteBuffer} represented by {@code string}, which must be have generated by {@link
-     * #toString(ByteBuffer)}.
+     * Returns the {@link ByteBuffer} wrapping the specified Lucene {@link BytesRef}, without copying it. The specified
+     * {@link BytesRef} must not be reused while the returned {@link ByteBuffer} is in use.
      *
-     * @param string the {@link String} to be converted to {@link ByteBuffer}. This must be have generated by {@link
-     *               #toString(ByteBuffer)}.
-     * @return the {@link ByteBuffer} represented by {@code string}.
+     * @param bytesRef the {@link BytesRef} to be converted to {@link ByteBuffer}.
+     * @return the {@link ByteBuffer} wrapping {@code bytesRef}.
      */
-    public static ByteBuffer fromString(String string) {
-        return Base256Serializer.byteBuffer(string);
+    public static ByteBuffer byteBuffer(BytesRef bytesRef) {
+        return ByteBuffer.wrap(bytesRef.bytes, bytesRef.offset, bytesRef.length).slice();
     }
 
     /**
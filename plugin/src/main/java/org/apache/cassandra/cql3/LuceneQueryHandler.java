@@ -22,6 +22,8 @@ import com.stratio.cassandra.lucene.service.RowMapper;
 import com.stratio.cassandra.lucene.util.ByteBufferUtils;
 import com.stratio.cassandra.lucene.util.Log;
 import com.stratio.cassandra.lucene.util.TimeCounter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.apache.cassandra.cql3.statements.BatchStatement;
 import org.apache.cassandra.cql3.statements.ParsedStatement;
 import org.apache.cassandra.cql3.statements.SelectStatement;
@@ -46,6 +48,8 @@ import org.apache.cassandra.transport.messages.ResultMessage;
 import org.apache.cassandra.utils.MD5Digest;
 import org.apache.cassandra.utils.Pair;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
@@ -61,16 +65,105 @@ public class LuceneQueryHandler implements QueryHandler {
 
     static QueryProcessor cqlProcessor = QueryProcessor.instance;
 
-    private IDiskAtomFilter makeFilter(SelectStatement statement, QueryOptions options, int limit) throws Exception {
-        Method method = SelectStatement.class.getDeclaredMethod("makeFilter", QueryOptions.class, int.class);
-        method.setAccessible(true);
-        return (IDiskAtomFilter) method.invoke(statement, options, limit);
+    /**
+     * The system property enabling the two-phase search of the global top rows in relevance searches. It must only be
+     * enabled when all the nodes run a plugin version supporting the {@link IndexSearcher#KEYS_ONLY} expression.
+     */
+    public static final String TWO_PHASE_SEARCH_PROPERTY = "cassandra.lucene.two_phase_search";
+    private static final boolean TWO_PHASE_SEARCH = Boolean.getBoolean(TWO_PHASE_SEARCH_PROPERTY);
+
+    /** The max number of cached prepared statement plans. */
+    private static final int MAX_CACHED_PLANS = 10000;
+
+    /**
+     * The Lucene plans of the prepared {@link SelectStatement}s, compared by identity. The {@link QueryHandler} API
+     * doesn't provide the prepared statement id at execution, but each id maps to a single {@link SelectStatement}, and
+     * the weak keys release the plans of the statements evicted from the prepared statements cache.
+     */
+    static final Cache<SelectStatement, Plan> plans = CacheBuilder.newBuilder()
+                                                                          .weakKeys()
+                                                                          .maximumSize(MAX_CACHED_PLANS)
+                                                                          .build();
+
+    /** Handle to the private {@link SelectStatement} method building the {@link IDiskAtomFilter} of a query. */
+    private static final MethodHandle makeFilter;
+
+    /** Handle to the private {@link SelectStatement.Parameters} field saying if a query is a count. */
+    private static final MethodHandle isCount;
+
+    /** Handle to the private {@link SelectStatement} field saying if a query uses secondary indexes. */
+    private static final MethodHandle usesSecondaryIndexing;
+
+    static {
+        try {
+            Method method = SelectStatement.class.getDeclaredMethod("makeFilter", QueryOptions.class, int.class);
+            method.setAccessible(true);
+            makeFilter = MethodHandles.lookup().unreflect(method);
+            Field field = SelectStatement.Parameters.class.getDeclaredField("isCount");
+            field.setAccessible(true);
+            isCount = MethodHandles.lookup().unreflectGetter(field);
+            field = SelectStatement.class.getDeclaredField("usesSecondaryIndexing");
+            field.setAccessible(true);
+            usesSecondaryIndexing = MethodHandles.lookup().unreflectGetter(field);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static IDiskAtomFilter makeFilter(SelectStatement statement, QueryOptions options, int limit)
+    throws Exception {
+        try {
+            return (IDiskAtomFilter) makeFilter.invokeExact(statement, options, limit);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new RuntimeException(t);
+        }
+    }
+
+    static boolean isCount(SelectStatement selectStatement) {
+        try {
+            return (boolean) isCount.invokeExact(selectStatement.parameters);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new RuntimeException(t);
+        }
+    }
+
+    static boolean usesSecondaryIndexing(SelectStatement selectStatement) {
+        try {
+            return (boolean) usesSecondaryIndexing.invokeExact(selectStatement);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new RuntimeException(t);
+        }
     }
 
-    private static boolean isCount(SelectStatement selectStatement) throws Exception {
-        Field field = SelectStatement.Parameters.class.getDeclaredField("isCount");
-        field.setAccessible(true);
-        return (boolean) field.get(selectStatement.parameters);
+    /**
+     * Returns if the specified prepared {@link SelectStatement} may be a Lucene search, without building its {@link
+     * IndexExpression}s. This is not the case for statements not using secondary indexes, nor for statements whose
+     * cached plan has no {@link IndexSearcher}, because the columns of the {@link IndexExpression}s of a statement
+     * don't depend on the bound values.
+     *
+     * @param select A prepared {@link SelectStatement}.
+     * @return {@code true} if {@code select} may be a Lucene search, {@code false} otherwise.
+     */
+    static boolean mayBeLuceneSearch(SelectStatement select) {
+        if (!usesSecondaryIndexing(select)) {
+            return false;
+        }
+        Plan plan = plans.getIfPresent(select);
+        return plan == null || plan.searcher != null;
+    }
+
+    /**
+     * Discards all the cached prepared statement plans. It should be called whenever a Lucene index is created or
+     * removed, so the {@link IndexSearcher}s referenced by the plans are resolved again.
+     */
+    public static void invalidatePlans() {
+        plans.invalidateAll();
     }
 
     @Override
@@ -91,7 +184,29 @@ public class LuceneQueryHandler implements QueryHandler {
     @Override
     public ResultMessage processPrepared(CQLStatement statement, QueryState state, QueryOptions options)
     throws RequestExecutionException, RequestValidationException {
-        return cqlProcessor.processPrepared(statement, state, options);
+
+        List<ByteBuffer> variables = options.getValues();
+        if (!(variables.isEmpty() && statement.getBoundTerms() == 0) && variables.size() != statement.getBoundTerms())
+            throw new InvalidRequestException(String.format("there were %d markers(?) in CQL but %d bound variables",
+                                                            statement.getBoundTerms(),
+                                                            variables.size()));
+
+        QueryProcessor.metrics.preparedStatementsExecuted.inc();
+
+        if (statement instanceof SelectStatement && mayBeLuceneSearch((SelectStatement) statement)) {
+            SelectStatement select = (SelectStatement) statement;
+            List<IndexExpression> expressions = select.getValidatedIndexExpressions(options);
+            Plan plan = plans.getIfPresent(select);
+            if (plan == null || !plan.matches(expressions)) {
+                plan = new Plan(select, expressions);
+                plans.put(select, plan);
+            }
+            if (plan.searcher != null) {
+                return execute(plan.searcher, expressions, select, state, options, plan.isCount);
+            }
+        }
+
+        return cqlProcessor.processStatement(statement, state, options);
     }
 
     @Override
@@ -115,32 +230,54 @@ public class LuceneQueryHandler implements QueryHandler {
         if (prepared instanceof SelectStatement) {
             SelectStatement select = (SelectStatement) prepared;
             List<IndexExpression> expressions = select.getValidatedIndexExpressions(options);
-            ColumnFamilyStore cfs = Keyspace.open(select.keyspace()).getColumnFamilyStore(select.columnFamily());
-            SecondaryIndexManager secondaryIndexManager = cfs.indexManager;
-            SecondaryIndexSearcher searcher = secondaryIndexManager.getHighestSelectivityIndexSearcher(expressions);
-            if (searcher != null && searcher instanceof IndexSearcher) {
-                try {
-                    TimeCounter time = TimeCounter.create().start();
-                    ResultMessage msg = process((IndexSearcher) searcher, expressions, select, state, options);
-                    Log.debug("Total Lucene query time: %s\n", time.stop());
-                    return msg;
-                } catch (RequestExecutionException | RequestValidationException e) {
-                    throw e;
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    throw new RuntimeException(e);
-                }
+            IndexSearcher searcher = searcher(select, expressions);
+            if (searcher != null) {
+                return execute(searcher, expressions, select, state, options, isCount(select));
             }
         }
 
         return cqlProcessor.processStatement(prepared, state, options);
     }
 
+    /**
+     * Returns the Lucene {@link IndexSearcher} to be used for the specified {@link SelectStatement}, if any.
+     *
+     * @param select      A {@link SelectStatement}.
+     * @param expressions The {@link IndexExpression}s of {@code select}.
+     * @return The Lucene {@link IndexSearcher} for {@code select}, or {@code null} if it is not a Lucene search.
+     */
+    private static IndexSearcher searcher(SelectStatement select, List<IndexExpression> expressions) {
+        ColumnFamilyStore cfs = Keyspace.open(select.keyspace()).getColumnFamilyStore(select.columnFamily());
+        SecondaryIndexManager secondaryIndexManager = cfs.indexManager;
+        SecondaryIndexSearcher searcher = secondaryIndexManager.getHighestSelectivityIndexSearcher(expressions);
+        return searcher instanceof IndexSearcher ? (IndexSearcher) searcher : null;
+    }
+
+    private ResultMessage execute(IndexSearcher searcher,
+                                  List<IndexExpression> expressions,
+                                  SelectStatement statement,
+                                  QueryState state,
+                                  QueryOptions options,
+                                  boolean isCount) throws RequestExecutionException, RequestValidationException {
+        try {
+            TimeCounter time = TimeCounter.create().start();
+            ResultMessage msg = process(searcher, expressions, statement, state, options, isCount);
+            Log.debug("Total Lucene query time: %s\n", time.stop());
+            return msg;
+        } catch (RequestExecutionException | RequestValidationException e) {
+            throw e;
+        } catch (Exception e) {
+            e.printStackTrace();
+            throw new RuntimeException(e);
+        }
+    }
+
     public ResultMessage process(IndexSearcher searcher,
                                  List<IndexExpression> expressions,
                                  SelectStatement statement,
                                  QueryState state,
-                                 QueryOptions options) throws Exception {
+                                 QueryOptions options,
+                                 boolean isCount) throws Exception {
 
         ClientState clientState = state.getClientState();
         statement.checkAccess(clientState);
@@ -148,7 +285,6 @@ public class LuceneQueryHandler implements QueryHandler {
 
         int limit = statement.getLimit(options);
         int page = options.getPageSize();
-        boolean isCount = isCount(statement);
 
         String ks = statement.keyspace();
         String cf = statement.columnFamily();
@@ -177,8 +313,20 @@ public class LuceneQueryHandler implements QueryHandler {
         int remaining;
         int collectedRows;
 
+        boolean twoPhase = TWO_PHASE_SEARCH && !isCount && searcher.allowsTwoPhaseSearch(expressions);
         do {
-            Pair<List<Row>, RowKeys> results = LuceneStorageProxy.getRangeSlice(searcher,
+            Pair<List<Row>, RowKeys> results = twoPhase ?
+                                               LuceneStorageProxy.getTopRangeSlice(searcher,
+                                                                                   ks,
+                                                                                   cf,
+                                                                                   now,
+                                                                                   filter,
+                                                                                   range,
+                                                                                   expressions,
+                                                                                   rowsPerCommand,
+                                                                                   cl,
+                                                                                   rowKeys) :
+                                               LuceneStorageProxy.getRangeSlice(searcher,
                                                                                 ks,
                                                                                 cf,
                                                                                 now,
@@ -204,4 +352,45 @@ public class LuceneQueryHandler implements QueryHandler {
         }
         return msg;
     }
-}
\ No newline at end of file
+
+    /**
+     * The cached Lucene execution plan of a prepared {@link SelectStatement}. The {@link IndexSearcher} is chosen
+     * according to the columns of the {@link IndexExpression}s, so the plan is only valid for executions whose bound
+     * {@link IndexExpression}s have the same columns.
+     */
+    private static final class Plan {
+
+        /** The columns of the {@link IndexExpression}s used to choose the {@link IndexSearcher}. */
+        private final List<ByteBuffer> columns;
+
+        /** The Lucene {@link IndexSearcher}, {@code null} if the statement is not a Lucene search. */
+        private final IndexSearcher searcher;
+
+        /** If the statement is a count. */
+        private final boolean isCount;
+
+        Plan(SelectStatement select, List<IndexExpression> expressions) {
+            this.columns = columns(expressions);
+            this.searcher = searcher(select, expressions);
+            this.isCount = isCount(select);
+        }
+
+        /**
+         * Returns if this plan can be used for an execution with the specified {@link IndexExpression}s.
+         *
+         * @param expressions The bound {@link IndexExpression}s of an execution.
+         * @return {@code true} if this plan is valid for {@code expressions}, {@code false} otherwise.
+         */
+        boolean matches(List<IndexExpression> expressions) {
+            return columns.equals(columns(expressions));
+        }
+
+        private static List<ByteBuffer> columns(List<IndexExpression> expressions) {
+            List<ByteBuffer> columns = new ArrayList<>(expressions.size());
+            for (IndexExpression expression : expressions) {
+                columns.add(expression.column);
+            }
+            return columns;
+        }
+    }
+}
@@ -9,6 +9,7 @@ import org.apache.cassandra.concurrent.StageManager;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.cql3.Operator;
 import org.apache.cassandra.db.*;
+import org.apache.cassandra.db.composites.CellName;
 import org.apache.cassandra.db.filter.IDiskAtomFilter;
 import org.apache.cassandra.db.filter.SliceQueryFilter;
 import org.apache.cassandra.db.index.SecondaryIndex;
@@ -22,6 +23,7 @@ import org.apache.cassandra.net.AsyncOneResponse;
 import org.apache.cassandra.net.MessageOut;
 import org.apache.cassandra.net.MessagingService;
 import org.apache.cassandra.tracing.Tracing;
+import org.apache.cassandra.utils.ByteBufferUtil;
 import org.apache.cassandra.utils.FBUtilities;
 import org.apache.cassandra.utils.Pair;
 import org.slf4j.Logger;
@@ -29,8 +31,12 @@ import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Method;
 import java.net.InetAddress;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -45,6 +51,13 @@ public class LuceneStorageProxy {
     private static final ClientRequestMetrics rangeMetrics = new ClientRequestMetrics("RangeSlice");
     private static final double CONCURRENT_SUBREQUESTS_MARGIN = 0.10;
 
+    /**
+     * The system property enabling the grouping of the token ranges of full scan searches by replicas. It must only be
+     * enabled when all the nodes run a plugin version supporting the {@link IndexSearcher#TOKEN_RANGES} expression.
+     */
+    public static final String GROUP_TOKEN_RANGES_PROPERTY = "cassandra.lucene.group_token_ranges";
+    private static final boolean GROUP_TOKEN_RANGES = Boolean.getBoolean(GROUP_TOKEN_RANGES_PROPERTY);
+
     private static final Method getLiveSortedEndpoints;
     private static final Method intersection;
     private static final Method calculateResultRowsUsingEstimatedKeys;
@@ -119,21 +132,83 @@ public class LuceneStorageProxy {
                ((SliceQueryFilter) predicate).compositesToGroup == SliceQueryFilter.IGNORE_TOMBSTONED_PARTITIONS;
     }
 
-    private static RowKey rowKey(AbstractBounds<RowPosition> range, RowKeys rowKeys) {
+    static RowKey rowKey(AbstractBounds<RowPosition> range,
+                         Map<AbstractBounds<RowPosition>, List<AbstractBounds<RowPosition>>> subRanges,
+                         RowKeys rowKeys) {
         if (rowKeys == null) return null;
+        List<AbstractBounds<RowPosition>> ranges = subRanges.get(range);
+        if (ranges == null) ranges = Collections.singletonList(range);
         for (RowKey rowKey : rowKeys) {
             DecoratedKey key = rowKey.getPartitionKey();
-            if (range.contains(key)) return rowKey;
+            for (AbstractBounds<RowPosition> r : ranges) {
+                if (r.contains(key)) return rowKey;
+            }
         }
         return null;
     }
 
-    public static RowKey last(RowMapper mapper, RowKey rowKey, List<Row> rows, List<Row> processedRows) {
-        for (int i = rows.size() - 1; i >= 0; i--) {
-            Row row = rows.get(i);
-            if (processedRows.contains(row)) return mapper.rowKey(row);
+    /**
+     * Groups the specified sorted ranges by the replicas to be queried, so all the ranges of each group can be
+     * searched with a single range command. Each group is represented by the range covering all its ranges, and the
+     * grouped ranges are put in {@code subRanges} to be sent along with the command as a token ranges filter. This is
+     * only worth for searches requiring scanning all the ranges, because all the ranges are queried at once.
+     */
+    static List<AbstractBounds<RowPosition>> groupByReplicas(
+            ReplicasSource replicas,
+            List<? extends AbstractBounds<RowPosition>> ranges,
+            Map<AbstractBounds<RowPosition>, List<AbstractBounds<RowPosition>>> subRanges) throws Exception {
+        // Covering ranges can't wrap around
+        for (int i = 0; i < ranges.size() - 1; i++) {
+            if (ranges.get(i).right.isMinimum()) return new ArrayList<>(ranges);
         }
-        return rowKey;
+
+        Map<List<InetAddress>, List<AbstractBounds<RowPosition>>> groups = new LinkedHashMap<>();
+        for (AbstractBounds<RowPosition> range : ranges) {
+            List<InetAddress> filteredEndpoints = replicas.replicas(range);
+            List<AbstractBounds<RowPosition>> group = groups.get(filteredEndpoints);
+            if (group == null) {
+                group = new ArrayList<>();
+                groups.put(filteredEndpoints, group);
+            }
+            AbstractBounds<RowPosition> previous = group.isEmpty() ? null : group.get(group.size() - 1);
+            if (previous != null && previous.right.equals(range.left)) {
+                // contiguous ranges are merged, as they would be if they were consecutive
+                group.set(group.size() - 1, AbstractBounds.bounds(previous.left,
+                                                                  previous.inclusiveLeft(),
+                                                                  range.right,
+                                                                  range.inclusiveRight()));
+            } else {
+                group.add(range);
+            }
+        }
+
+        List<AbstractBounds<RowPosition>> grouped = new ArrayList<>(groups.size());
+        for (List<AbstractBounds<RowPosition>> group : groups.values()) {
+            AbstractBounds<RowPosition> first = group.get(0);
+            AbstractBounds<RowPosition> last = group.get(group.size() - 1);
+            AbstractBounds<RowPosition> covering = AbstractBounds.bounds(first.left,
+                                                                         first.inclusiveLeft(),
+                                                                         last.right,
+                                                                         last.inclusiveRight());
+            if (group.size() > 1) subRanges.put(covering, group);
+            grouped.add(covering);
+        }
+        return grouped;
+    }
+
+    /**
+     * The replicas to be queried for each token range.
+     */
+    interface ReplicasSource {
+
+        /**
+         * Returns the replicas to be queried for the specified token range.
+         *
+         * @param range A token range.
+         * @return The replicas to be queried for {@code range}.
+         * @throws Exception If the replicas can't be retrieved.
+         */
+        List<InetAddress> replicas(AbstractBounds<RowPosition> range) throws Exception;
     }
 
     public static Pair<List<Row>, RowKeys> getRangeSlice(IndexSearcher searcher,
@@ -152,7 +227,8 @@ public class LuceneStorageProxy {
 
         Keyspace keyspace = Keyspace.open(keyspaceName);
         List<Row> rows;
-        Map<AbstractBounds<RowPosition>, List<Row>> rowsPerRange = new HashMap<>();
+        Map<AbstractBounds<RowPosition>, List<Row>> rowsPerRange = new LinkedHashMap<>();
+        Map<AbstractBounds<RowPosition>, List<AbstractBounds<RowPosition>>> subRanges = new HashMap<>();
         // now scan until we have enough results
         try {
             int liveRowCount = 0;
@@ -165,6 +241,23 @@ public class LuceneStorageProxy {
             if (keyspace.getReplicationStrategy() instanceof LocalStrategy) ranges = keyRange.unwrap();
             else ranges = StorageProxy.getRestrictedRanges(keyRange);
 
+            // searches scanning all ranges query all of them at once, so ranges with the same replicas can be grouped
+            // into a single range command filtered by their token ranges
+            boolean grouped = false;
+            if (GROUP_TOKEN_RANGES && searcher.requiresScanningAllRanges(expressions) && ranges.size() > 1) {
+                final Keyspace ks = keyspace;
+                final ConsistencyLevel cl = consistency_level;
+                int numRanges = ranges.size();
+                ranges = groupByReplicas(new ReplicasSource() {
+                    @Override
+                    public List<InetAddress> replicas(AbstractBounds<RowPosition> range) throws Exception {
+                        return cl.filterForQuery(ks, getLiveSortedEndpoints(ks, range.right));
+                    }
+                }, ranges, subRanges);
+                grouped = !subRanges.isEmpty();
+                Tracing.trace("Grouped {} ranges into {} range requests", numRanges, ranges.size());
+            }
+
             // determine the number of rows to be fetched and the concurrency factor
             int rowsToBeFetched = limit;
             int concurrencyFactor;
@@ -225,7 +318,7 @@ public class LuceneStorageProxy {
                     // getRestrictedRange has broken the queried range into per-[vnode] token ranges, but this doesn't take
                     // the replication factor into account. If the intersection of live endpoints for 2 consecutive ranges
                     // still meets the CL requirements, then we can merge both ranges into the same RangeSliceCommand.
-                    while (i < ranges.size()) {
+                    while (i < ranges.size() && !grouped) {
                         nextRange = ranges.get(i);
                         nextEndpoints = getLiveSortedEndpoints(keyspace, nextRange.right);
                         nextFilteredEndpoints = consistency_level.filterForQuery(keyspace, nextEndpoints);
@@ -258,7 +351,7 @@ public class LuceneStorageProxy {
                     }
 
                     ////////////////////////////////////////////////////////////////////////////////////////////////////
-                    RowKey after = rowKey(range, rowKeys);
+                    RowKey after = rowKey(range, subRanges, rowKeys);
 
                     List<IndexExpression> decoratedExpressions = new ArrayList<>(expressions);
                     if (after != null) {
@@ -266,6 +359,11 @@ public class LuceneStorageProxy {
                                                                      Operator.EQ,
                                                                      searcher.mapper().byteBuffer(after)));
                     }
+                    if (subRanges.containsKey(range)) {
+                        decoratedExpressions.add(new IndexExpression(IndexSearcher.TOKEN_RANGES,
+                                                                     Operator.EQ,
+                                                                     IndexSearcher.tokenRanges(subRanges.get(range))));
+                    }
                     RangeSliceCommand command = new RangeSliceCommand(keyspaceName,
                                                                       columnFamily,
                                                                       timestamp,
@@ -366,7 +464,7 @@ public class LuceneStorageProxy {
                 }
 
                 if (haveSufficientRows)
-                    return makeResult(rows, searcher, expressions, limit, rowsPerRange, rowKeys, searcher.mapper());
+                    return makeResult(searcher, expressions, limit, rowsPerRange, subRanges, rowKeys, searcher.mapper());
 
                 // we didn't get enough rows in our concurrent fetch; recalculate our concurrency factor
                 // based on the results we've seen so far (as long as we still have ranges left to query)
@@ -397,22 +495,189 @@ public class LuceneStorageProxy {
             Keyspace.open(keyspaceName).getColumnFamilyStore(columnFamily).metric.coordinatorScanLatency.update(latency,
                                                                                                                 TimeUnit.NANOSECONDS);
         }
-        return makeResult(rows, searcher, expressions, limit, rowsPerRange, rowKeys, searcher.mapper());
+        return makeResult(searcher, expressions, limit, rowsPerRange, subRanges, rowKeys, searcher.mapper());
+    }
+
+    /**
+     * Runs a top-k relevance search in two phases. First, the keys and scores of the best rows of each range are
+     * collected and merged to get the global top rows. Then, only these rows are read with a point read per partition.
+     * The top rows that are not found or are dead in the second phase, because they have been deleted or have expired
+     * since they were indexed, are discarded, and the next best keys are searched to replace them.
+     */
+    public static Pair<List<Row>, RowKeys> getTopRangeSlice(final IndexSearcher searcher,
+                                                            final String keyspaceName,
+                                                            final String columnFamily,
+                                                            final long timestamp,
+                                                            final IDiskAtomFilter predicate,
+                                                            final AbstractBounds<RowPosition> keyRange,
+                                                            List<IndexExpression> expressions,
+                                                            int limit,
+                                                            final ConsistencyLevel consistency_level,
+                                                            RowKeys rowKeys) throws Exception {
+        final List<IndexExpression> keysOnlyExpressions = new ArrayList<>(expressions);
+        keysOnlyExpressions.add(new IndexExpression(IndexSearcher.KEYS_ONLY,
+                                                    Operator.EQ,
+                                                    ByteBufferUtil.EMPTY_BYTE_BUFFER));
+        final RowMapper mapper = searcher.mapper();
+        return getTopRows(new TopRowsSource() {
+            @Override
+            public Pair<List<Row>, RowKeys> keys(int limit, RowKeys rowKeys) throws Exception {
+                return getRangeSlice(searcher,
+                                     keyspaceName,
+                                     columnFamily,
+                                     timestamp,
+                                     predicate,
+                                     keyRange,
+                                     keysOnlyExpressions,
+                                     limit,
+                                     consistency_level,
+                                     rowKeys,
+                                     false);
+            }
+
+            @Override
+            public List<Row> rows(List<Row> keyRows) throws Exception {
+                Tracing.trace("Reading {} top rows", keyRows.size());
+                return fetch(mapper, keyspaceName, columnFamily, timestamp, keyRows, consistency_level);
+            }
+
+            @Override
+            public ByteBuffer key(Row row) {
+                return mapper.byteBuffer(mapper.rowKey(row));
+            }
+        }, limit, rowKeys, timestamp);
+    }
+
+    /**
+     * The two phases of a top-k search: searching the keys of the best rows and reading these rows.
+     */
+    interface TopRowsSource {
+
+        /**
+         * Returns the key rows, with their scores, of the best {@code limit} rows after the specified paging state.
+         *
+         * @param limit   The max number of key rows to be returned.
+         * @param rowKeys The paging state, maybe {@code null} meaning the first page.
+         * @return The best key rows, sorted by score, and the paging state after them.
+         * @throws Exception If the search fails.
+         */
+        Pair<List<Row>, RowKeys> keys(int limit, RowKeys rowKeys) throws Exception;
+
+        /**
+         * Reads the stored rows identified by the specified key rows, in any order. Missing rows are not returned.
+         *
+         * @param keyRows The key rows.
+         * @return The found rows.
+         * @throws Exception If the read fails.
+         */
+        List<Row> rows(List<Row> keyRows) throws Exception;
+
+        /**
+         * Returns the serialized primary key of the specified row, to match the key rows with the read rows.
+         *
+         * @param row A row.
+         * @return The serialized primary key of {@code row}.
+         */
+        ByteBuffer key(Row row);
+    }
+
+    /**
+     * Returns the best {@code limit} live rows retrieved from the specified {@link TopRowsSource}. The best key rows are
+     * searched and read, discarding the missing and dead ones, and the next best key rows are searched to replace them
+     * until there are enough live rows or there are no more matching key rows.
+     *
+     * @param source    The top-k search phases.
+     * @param limit     The max number of rows to be returned.
+     * @param rowKeys   The paging state, maybe {@code null} meaning the first page.
+     * @param timestamp The time to check the liveness of the rows.
+     * @return The best live rows, with their scores, and the paging state after the last used key row.
+     * @throws Exception If the search or the read fail.
+     */
+    static Pair<List<Row>, RowKeys> getTopRows(TopRowsSource source, int limit, RowKeys rowKeys, long timestamp)
+    throws Exception {
+        List<Row> rows = new ArrayList<>(limit);
+        while (rows.size() < limit) {
+            int remaining = limit - rows.size();
+            Pair<List<Row>, RowKeys> keys = source.keys(remaining, rowKeys);
+            rowKeys = keys.right;
+            if (keys.left.isEmpty()) break;
+
+            Map<ByteBuffer, Row> fetchedRows = new HashMap<>(keys.left.size());
+            for (Row row : source.rows(keys.left)) {
+                fetchedRows.put(source.key(row), row);
+            }
+
+            // Keep the live rows in search order, with their scores
+            for (Row keyRow : keys.left) {
+                Row row = fetchedRows.get(source.key(keyRow));
+                if (row != null && !row.cf.hasOnlyTombstones(timestamp)) {
+                    row.cf.addAll(keyRow.cf);
+                    rows.add(row);
+                }
+            }
+            if (keys.left.size() < remaining) break; // No more matching keys
+        }
+        return Pair.create(rows, rowKeys);
+    }
+
+    private static List<Row> fetch(RowMapper mapper,
+                                   String keyspaceName,
+                                   String columnFamily,
+                                   long timestamp,
+                                   List<Row> keyRows,
+                                   ConsistencyLevel consistency_level) throws Exception {
+
+        // Group the clustering keys of the requested rows by partition
+        Map<DecoratedKey, List<CellName>> clusteringKeys = new LinkedHashMap<>();
+        for (Row keyRow : keyRows) {
+            List<CellName> partitionClusteringKeys = clusteringKeys.get(keyRow.key);
+            if (partitionClusteringKeys == null) {
+                partitionClusteringKeys = new ArrayList<>();
+                clusteringKeys.put(keyRow.key, partitionClusteringKeys);
+            }
+            partitionClusteringKeys.add(mapper.clusteringKey(keyRow));
+        }
+
+        List<ReadCommand> commands = new ArrayList<>(clusteringKeys.size());
+        for (Map.Entry<DecoratedKey, List<CellName>> entry : clusteringKeys.entrySet()) {
+            commands.add(ReadCommand.create(keyspaceName,
+                                            entry.getKey().getKey(),
+                                            columnFamily,
+                                            timestamp,
+                                            mapper.filter(entry.getValue())));
+        }
+
+        List<Row> rows = new ArrayList<>(keyRows.size());
+        for (Row partition : StorageProxy.read(commands, consistency_level)) {
+            if (partition.cf != null) rows.addAll(mapper.split(partition));
+        }
+        return rows;
     }
 
-    public static Pair<List<Row>, RowKeys> makeResult(List<Row> rows,
-                                                      IndexSearcher searcher,
+    public static Pair<List<Row>, RowKeys> makeResult(IndexSearcher searcher,
                                                       List<IndexExpression> expressions,
                                                       int limit,
                                                       Map<AbstractBounds<RowPosition>, List<Row>> rowsPerRange,
+                                                      Map<AbstractBounds<RowPosition>, List<AbstractBounds<RowPosition>>> subRanges,
                                                       RowKeys rowKeys,
                                                       RowMapper mapper) {
-        rows = searcher.postReconciliationProcessing(expressions, rows);
-        rows = rows.size() > limit ? rows.subList(0, limit) : rows;
+        List<List<Row>> sortedRowsPerRange = new ArrayList<>(rowsPerRange.values());
+        List<Row> rows = searcher.postReconciliationProcessing(expressions, sortedRowsPerRange, limit);
+
+        // Index the position of each returned row to find the last one of each range
+        Map<Row, Integer> positions = new IdentityHashMap<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            positions.put(rows.get(i), i);
+        }
+
         RowKeys newRowKeys = new RowKeys();
         for (Map.Entry<AbstractBounds<RowPosition>, List<Row>> entry : rowsPerRange.entrySet()) {
-            RowKey rowKey = rowKey(entry.getKey(), rowKeys);
-            RowKey newRowKey = last(mapper, rowKey, rows, entry.getValue());
+            int last = -1;
+            for (Row row : entry.getValue()) {
+                Integer position = positions.get(row);
+                if (position != null && position > last) last = position;
+            }
+            RowKey newRowKey = last < 0 ? rowKey(entry.getKey(), subRanges, rowKeys) : mapper.rowKey(rows.get(last));
             if (newRowKey != null) newRowKeys.add(newRowKey);
         }
         return Pair.create(rows, newRowKeys);
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2015, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.cassandra.lucene;
+
+import org.apache.cassandra.config.CFMetaData;
+import org.apache.cassandra.config.ColumnDefinition;
+import org.apache.cassandra.config.IndexType;
+import org.apache.cassandra.db.marshal.UTF8Type;
+import org.apache.cassandra.exceptions.ConfigurationException;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.stratio.cassandra.lucene.IndexConfig.*;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class IndexConfigTest {
+
+    private static IndexConfig config(String... options) throws ConfigurationException {
+        Map<String, String> indexOptions = new HashMap<>();
+        indexOptions.put(SCHEMA_OPTION, "{fields:{field:{type:\"string\"}}}");
+        indexOptions.put(DIRECTORY_PATH_OPTION, "/tmp/lucene");
+        for (int i = 0; i < options.length; i += 2) {
+            indexOptions.put(options[i], options[i + 1]);
+        }
+        CFMetaData metadata = CFMetaData.sparseCFMetaData("ks", "cf", UTF8Type.instance);
+        ColumnDefinition columnDefinition = ColumnDefinition.regularDef(metadata,
+                                                                        ByteBufferUtil.bytes("field"),
+                                                                        UTF8Type.instance,
+                                                                        null);
+        columnDefinition.setIndex("idx", IndexType.CUSTOM, indexOptions);
+        metadata.addColumnDefinition(columnDefinition);
+        return new IndexConfig(metadata, columnDefinition);
+    }
+
+    @Test
+    public void testMergeDefaults() throws ConfigurationException {
+        IndexConfig config = config();
+        assertEquals(DEFAULT_MERGE_SEGMENTS_PER_TIER, config.getMergeSegmentsPerTier(), 0);
+        assertEquals(DEFAULT_MERGE_MAX_SEGMENT_MB, config.getMergeMaxSegmentMB());
+        assertEquals(DEFAULT_MERGE_DELETES_PCT_ALLOWED, config.getMergeDeletesPctAllowed(), 0);
+        assertEquals(DEFAULT_MERGE_FLOOR_SEGMENT_MB, config.getMergeFloorSegmentMB(), 0);
+        assertEquals(DEFAULT_MERGE_THREADS, config.getMergeThreads());
+        assertEquals(DEFAULT_MERGE_MAX_COUNT, config.getMergeMaxCount());
+        assertEquals(DEFAULT_MERGE_MB_PER_SEC, config.getMergeMBPerSec(), 0);
+        assertEquals(DEFAULT_COMPOUND_FILE, config.getCompoundFile());
+        assertEquals(DEFAULT_COMPOUND_FILE_RATIO, config.getCompoundFileRatio(), 0);
+        assertEquals(DEFAULT_COMPOUND_FILE_MAX_SEGMENT_MB, config.getCompoundFileMaxSegmentMB());
+    }
+
+    @Test
+    public void testMergeOptions() throws ConfigurationException {
+        IndexConfig config = config(MERGE_SEGMENTS_PER_TIER_OPTION, "4.5",
+                                    MERGE_MAX_SEGMENT_MB_OPTION, "1024",
+                                    MERGE_DELETES_PCT_ALLOWED_OPTION, "20",
+                                    MERGE_FLOOR_SEGMENT_MB_OPTION, "0.5",
+                                    MERGE_THREADS_OPTION, "2",
+                                    MERGE_MAX_COUNT_OPTION, "3",
+                                    MERGE_MB_PER_SEC_OPTION, "12.5",
+                                    COMPOUND_FILE_OPTION, " Always ",
+                                    COMPOUND_FILE_RATIO_OPTION, "0.5",
+                                    COMPOUND_FILE_MAX_SEGMENT_MB_OPTION, "100");
+        assertEquals(4.5, config.getMergeSegmentsPerTier(), 0);
+        assertEquals(1024, config.getMergeMaxSegmentMB());
+        assertEquals(20, config.getMergeDeletesPctAllowed(), 0);
+        assertEquals(0.5, config.getMergeFloorSegmentMB(), 0);
+        assertEquals(2, config.getMergeThreads());
+        assertEquals(3, config.getMergeMaxCount());
+        assertEquals(12.5, config.getMergeMBPerSec(), 0);
+        assertEquals(CompoundFilePolicy.ALWAYS, config.getCompoundFile());
+        assertEquals(0.5, config.getCompoundFileRatio(), 0);
+        assertEquals(100, config.getCompoundFileMaxSegmentMB());
+    }
+
+    @Test(expected = IndexException.class)
+    public void testMergeSegmentsPerTierTooLow() throws ConfigurationException {
+        config(MERGE_SEGMENTS_PER_TIER_OPTION, "1.5");
+    }
+
+    @Test(expected = IndexException.class)
+    public void testMergeSegmentsPerTierNotNumeric() throws ConfigurationException {
+        config(MERGE_SEGMENTS_PER_TIER_OPTION, "a");
+    }
+
+    @Test(expected = IndexException.class)
+    public void testMergeMaxSegmentMBZero() throws ConfigurationException {
+        config(MERGE_MAX_SEGMENT_MB_OPTION, "0");
+    }
+
+    @Test(expected = IndexException.class)
+    public void testMergeMaxSegmentMBNotInteger() throws ConfigurationException {
+        config(MERGE_MAX_SEGMENT_MB_OPTION, "1.5");
+    }
+
+    @Test(expected = IndexException.class)
+    public void testMergeDeletesPctAllowedNegative() throws ConfigurationException {
+        config(MERGE_DELETES_PCT_ALLOWED_OPTION, "-1");
+    }
+
+    @Test(expected = IndexException.class)
+    public void testMergeDeletesPctAllowedTooHigh() throws ConfigurationException {
+        config(MERGE_DELETES_PCT_ALLOWED_OPTION, "100.1");
+    }
+
+    @Test(expected = IndexException.class)
+    public void testMergeFloorSegmentMBZero() throws ConfigurationException {
+        config(MERGE_FLOOR_SEGMENT_MB_OPTION, "0");
+    }
+
+    @Test(expected = IndexException.class)
+    public void testMergeThreadsNegative() throws ConfigurationException {
+        config(MERGE_THREADS_OPTION, "-1");
+    }
+
+    @Test(expected = IndexException.class)
+    public void testMergeMaxCountNegative() throws ConfigurationException {
+        config(MERGE_THREADS_OPTION, "1", MERGE_MAX_COUNT_OPTION, "-1");
+    }
+
+    @Test(expected = IndexException.class)
+    public void testMergeMaxCountWithoutThreads() throws ConfigurationException {
+        config(MERGE_MAX_COUNT_OPTION, "2");
+    }
+
+    @Test(expected = IndexException.class)
+    public void testMergeMaxCountLowerThanThreads() throws ConfigurationException {
+        config(MERGE_THREADS_OPTION, "3", MERGE_MAX_COUNT_OPTION, "2");
+    }
+
+    @Test(expected = IndexException.class)
+    public void testMergeMBPerSecNegative() throws ConfigurationException {
+        config(MERGE_MB_PER_SEC_OPTION, "-0.5");
+    }
+
+    @Test(expected = IndexException.class)
+    public void testCompoundFileUnknown() throws ConfigurationException {
+        config(COMPOUND_FILE_OPTION, "sometimes");
+    }
+
+    @Test(expected = IndexException.class)
+    public void testCompoundFileRatioNegative() throws ConfigurationException {
+        config(COMPOUND_FILE_RATIO_OPTION, "-0.1");
+    }
+
+    @Test(expected = IndexException.class)
+    public void testCompoundFileRatioTooHigh() throws ConfigurationException {
+        config(COMPOUND_FILE_RATIO_OPTION, "1.1");
+    }
+
+    @Test(expected = IndexException.class)
+    public void testCompoundFileMaxSegmentMBNegative() throws ConfigurationException {
+        config(COMPOUND_FILE_MAX_SEGMENT_MB_OPTION, "-1");
+    }
+}
@@ -31,8 +31,9 @@ public class SearchTest {
 
     @Test
     public void testBuilderEmpty() {
-        Search search = new Search(null, null, null, null);
+        Search search = new Search(null, null, null, null, null);
         assertFalse(search.refresh());
+        assertFalse(search.waitWrites());
         assertNotNull(search);
     }
 
@@ -42,9 +43,11 @@ public class SearchTest {
                                 .filter(match("field", "value"))
                                 .sort(sortField("field"))
                                 .refresh(true)
+                                .waitWrites(true)
                                 .build();
         assertNotNull(search);
         assertTrue(search.refresh());
+        assertTrue(search.waitWrites());
     }
 
     @Test
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2015, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.cassandra.lucene.service;
+
+import org.apache.cassandra.db.composites.CBuilder;
+import org.apache.cassandra.db.composites.CellName;
+import org.apache.cassandra.db.composites.CellNameType;
+import org.apache.cassandra.db.composites.Composite;
+import org.apache.cassandra.db.composites.CompoundDenseCellNameType;
+import org.apache.cassandra.db.composites.CompoundSparseCellNameType;
+import org.apache.cassandra.db.marshal.AbstractType;
+import org.apache.cassandra.db.marshal.AsciiType;
+import org.apache.cassandra.db.marshal.BooleanType;
+import org.apache.cassandra.db.marshal.BytesType;
+import org.apache.cassandra.db.marshal.DecimalType;
+import org.apache.cassandra.db.marshal.DoubleType;
+import org.apache.cassandra.db.marshal.FloatType;
+import org.apache.cassandra.db.marshal.Int32Type;
+import org.apache.cassandra.db.marshal.LongType;
+import org.apache.cassandra.db.marshal.ReversedType;
+import org.apache.cassandra.db.marshal.TimeUUIDType;
+import org.apache.cassandra.db.marshal.TimestampType;
+import org.apache.cassandra.db.marshal.UTF8Type;
+import org.apache.cassandra.utils.UUIDGen;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermRangeQuery;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class ClusteringKeyEncoderTest {
+
+    private static final String FIELD = "field";
+    private static final int NUM_KEYS = 200;
+    private static final int NUM_RANGES = 200;
+
+    private final Random random = new Random(0);
+
+    @Test
+    public void testUnsupported() {
+        assertNull(ClusteringKeyEncoder.instance(sparse(Int32Type.instance, DecimalType.instance), FIELD));
+        assertNull(ClusteringKeyEncoder.instance(new CompoundDenseCellNameType(types(Int32Type.instance)), FIELD));
+    }
+
+    @Test
+    public void testSuccessor() {
+        assertEquals(new BytesRef(new byte[]{1, 3}), ClusteringKeyEncoder.successor(new BytesRef(new byte[]{1, 2})));
+        assertEquals(new BytesRef(new byte[]{2}), ClusteringKeyEncoder.successor(new BytesRef(new byte[]{1, -1})));
+        assertNull(ClusteringKeyEncoder.successor(new BytesRef(new byte[]{-1, -1})));
+    }
+
+    @Test
+    public void testFixedSizeTypes() {
+        test(Int32Type.instance, LongType.instance, TimestampType.instance, BooleanType.instance);
+    }
+
+    @Test
+    public void testFloatingPointTypes() {
+        test(FloatType.instance, DoubleType.instance);
+    }
+
+    @Test
+    public void testVariableSizeTypes() {
+        test(UTF8Type.instance, BytesType.instance, AsciiType.instance);
+    }
+
+    @Test
+    public void testTimeUUIDType() {
+        test(TimeUUIDType.instance, Int32Type.instance);
+    }
+
+    @Test
+    public void testReversedTypes() {
+        test(ReversedType.getInstance(Int32Type.instance),
+             ReversedType.getInstance(BytesType.instance),
+             ReversedType.getInstance(TimeUUIDType.instance));
+    }
+
+    private void test(AbstractType<?>... types) {
+        CellNameType type = sparse(types);
+        ClusteringKeyEncoder encoder = ClusteringKeyEncoder.instance(type, FIELD);
+        assertNotNull(encoder);
+
+        List<CellName> keys = new ArrayList<>(NUM_KEYS);
+        for (int i = 0; i < NUM_KEYS; i++) {
+            keys.add(type.rowMarker(prefix(type, types, types.length)));
+        }
+
+        // Order
+        for (CellName key1 : keys) {
+            for (CellName key2 : keys) {
+                int expected = Integer.signum(type.compare(key1, key2));
+                int actual = Integer.signum(encoder.encode(key1).compareTo(encoder.encode(key2)));
+                assertEquals(String.format("Comparing %s and %s", key1, key2), expected, actual);
+            }
+        }
+
+        // Ranges
+        for (int i = 0; i < NUM_RANGES; i++) {
+            Composite start = bound(type, types, keys);
+            Composite stop = bound(type, types, keys);
+            Query query = encoder.query(start, stop);
+            for (CellName key : keys) {
+                boolean expected = (start.isEmpty() || type.compare(start, key) <= 0) &&
+                                   (stop.isEmpty() || type.compare(stop, key) >= 0);
+                assertEquals(String.format("Range %s %s with %s", start, stop, key), expected, matches(query, encoder.encode(key)));
+            }
+        }
+    }
+
+    private static boolean matches(Query query, BytesRef term) {
+        if (query instanceof BooleanQuery) {
+            return false;
+        }
+        TermRangeQuery rangeQuery = (TermRangeQuery) query;
+        BytesRef lower = rangeQuery.getLowerTerm();
+        BytesRef upper = rangeQuery.getUpperTerm();
+        return (lower == null || term.compareTo(lower) >= 0) && (upper == null || term.compareTo(upper) < 0);
+    }
+
+    private Composite bound(CellNameType type, AbstractType<?>[] types, List<CellName> keys) {
+        Composite.EOC eoc = Composite.EOC.values()[random.nextInt(Composite.EOC.values().length)];
+        int size = random.nextInt(types.length + 1);
+        if (random.nextBoolean()) {
+            // Prefix of an existing key
+            CellName key = keys.get(random.nextInt(keys.size()));
+            CBuilder builder = type.builder();
+            for (int i = 0; i < size; i++) {
+                builder.add(key.get(i));
+            }
+            return builder.build().withEOC(eoc);
+        }
+        return prefix(type, types, size).withEOC(eoc);
+    }
+
+    private Composite prefix(CellNameType type, AbstractType<?>[] types, int size) {
+        CBuilder builder = type.builder();
+        for (int i = 0; i < size; i++) {
+            builder.add(value(types[i]));
+        }
+        return builder.build();
+    }
+
+    private ByteBuffer value(AbstractType<?> type) {
+        if (type instanceof ReversedType) {
+            return value(((ReversedType<?>) type).baseType);
+        }
+        if (random.nextInt(20) == 0 && !(type instanceof UTF8Type || type instanceof AsciiType)) {
+            return ByteBuffer.allocate(0);
+        }
+        if (type instanceof Int32Type) {
+            return Int32Type.instance.decompose(random.nextInt(10) - 5);
+        } else if (type instanceof LongType || type instanceof TimestampType) {
+            return LongType.instance.decompose(random.nextBoolean() ? random.nextLong() : random.nextInt(10) - 5L);
+        } else if (type instanceof BooleanType) {
+            return BooleanType.instance.decompose(random.nextBoolean());
+        } else if (type instanceof FloatType) {
+            float[] values = {0f, -0f, 1.5f, -1.5f, Float.MAX_VALUE, -Float.MAX_VALUE, Float.NaN, random.nextFloat()};
+            return FloatType.instance.decompose(values[random.nextInt(values.length)]);
+        } else if (type instanceof DoubleType) {
+            double[] values = {0d, -0d, 2.5d, -2.5d, Double.MIN_VALUE, Double.NEGATIVE_INFINITY, random.nextGaussian()};
+            return DoubleType.instance.decompose(values[random.nextInt(values.length)]);
+        } else if (type instanceof TimeUUIDType) {
+            long timestamp = 1440000000000L + random.nextInt(5);
+            return ByteBuffer.wrap(UUIDGen.getTimeUUIDBytes(timestamp, random.nextInt(3)));
+        } else {
+            byte[] bytes = new byte[random.nextInt(4)];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = type instanceof BytesType ? (byte) (random.nextInt(5) - 2) : (byte) ('a' + random.nextInt(3));
+            }
+            return ByteBuffer.wrap(bytes);
+        }
+    }
+
+    private static CellNameType sparse(AbstractType<?>... types) {
+        return new CompoundSparseCellNameType(types(types));
+    }
+
+    private static List<AbstractType<?>> types(AbstractType<?>... types) {
+        return new ArrayList<>(Arrays.asList(types));
+    }
+}
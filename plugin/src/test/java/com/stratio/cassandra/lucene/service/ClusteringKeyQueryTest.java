@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.cassandra.lucene.service;
+
+import org.apache.cassandra.config.CFMetaData;
+import org.apache.cassandra.db.composites.CellName;
+import org.apache.cassandra.db.composites.CellNames;
+import org.apache.cassandra.db.marshal.Int32Type;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LRUQueryCache;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryCachingPolicy;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class ClusteringKeyQueryTest {
+
+    private static final CFMetaData METADATA = CFMetaData.denseCFMetaData("ks", "cf", Int32Type.instance);
+
+    private static CellName cellName(int i) {
+        return CellNames.simpleDense(ByteBufferUtil.bytes(i));
+    }
+
+    @Test
+    public void testEquals() {
+        ClusteringKeyMapper mapper = ClusteringKeyMapper.instance(METADATA, null);
+        Query query = new ClusteringKeyQuery(cellName(1), cellName(3), mapper);
+        assertEquals(query, new ClusteringKeyQuery(cellName(1), cellName(3), mapper));
+        assertEquals(query.hashCode(), new ClusteringKeyQuery(cellName(1), cellName(3), mapper).hashCode());
+        assertFalse(query.equals(new ClusteringKeyQuery(cellName(1), cellName(4), mapper)));
+        assertFalse(query.equals(new ClusteringKeyQuery(cellName(0), cellName(3), mapper)));
+        assertFalse(query.equals(new ClusteringKeyQuery(null, cellName(3), mapper)));
+        ClusteringKeyMapper otherMapper = ClusteringKeyMapper.instance(METADATA, null);
+        assertFalse(query.equals(new ClusteringKeyQuery(cellName(1), cellName(3), otherMapper)));
+    }
+
+    @Test
+    public void testCachedRanges() throws IOException {
+        ClusteringKeyMapper mapper = ClusteringKeyMapper.instance(METADATA, null);
+        Directory directory = new RAMDirectory();
+        IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()));
+        for (int i = 0; i < 10; i++) {
+            Document document = new Document();
+            mapper.addFields(document, cellName(i));
+            writer.addDocument(document);
+        }
+        writer.close();
+        DirectoryReader reader = DirectoryReader.open(directory);
+        IndexSearcher searcher = new IndexSearcher(reader);
+        searcher.setQueryCache(new LRUQueryCache(100, 1024 * 1024));
+        searcher.setQueryCachingPolicy(QueryCachingPolicy.ALWAYS_CACHE);
+        for (int i = 0; i < 2; i++) {
+            assertEquals(3, searcher.count(mapper.query(cellName(1), cellName(3))));
+            assertEquals(6, searcher.count(mapper.query(cellName(2), cellName(7))));
+            assertEquals(8, searcher.count(mapper.query(null, cellName(7))));
+        }
+        reader.close();
+        directory.close();
+    }
+}
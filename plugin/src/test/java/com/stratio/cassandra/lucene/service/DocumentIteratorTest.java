@@ -0,0 +1,106 @@
+/*
+ * Copyright 2015, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.cassandra.lucene.service;
+
+import org.apache.cassandra.utils.Pair;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class DocumentIteratorTest {
+
+    private static final String FIELD = "field";
+    private static final int NUM_DOCS = 250;
+
+    @Test
+    public void testIterate() throws IOException {
+
+        // Write several segments, with some documents lacking doc values
+        Directory directory = new RAMDirectory();
+        IndexWriterConfig config = new IndexWriterConfig(new StandardAnalyzer());
+        config.setMergePolicy(NoMergePolicy.INSTANCE);
+        IndexWriter writer = new IndexWriter(directory, config);
+        for (int i = 0; i < NUM_DOCS; i++) {
+            Document document = new Document();
+            document.add(new StoredField(FIELD, new BytesRef(String.valueOf(i))));
+            if (i % 7 != 0) {
+                document.add(new SortedDocValuesField(FIELD, new BytesRef(String.valueOf(i))));
+            }
+            writer.addDocument(document);
+            if (i % 40 == 0) {
+                writer.commit();
+            }
+        }
+        writer.close();
+        DirectoryReader reader = DirectoryReader.open(directory);
+        assertTrue("Expected several segments", reader.leaves().size() > 1);
+
+        // Iterate the hits in random order, across several batches
+        ScoreDoc[] scoreDocs = new ScoreDoc[NUM_DOCS];
+        for (int i = 0; i < NUM_DOCS; i++) {
+            scoreDocs[i] = new ScoreDoc(i, 0);
+        }
+        Collections.shuffle(Arrays.asList(scoreDocs), new Random(0));
+        Set<String> fields = Collections.singleton(FIELD);
+        DocumentIterator iterator = new DocumentIterator(new IndexSearcher(reader), scoreDocs, fields);
+        assertEquals(NUM_DOCS, iterator.size());
+        for (ScoreDoc scoreDoc : scoreDocs) {
+            assertTrue(iterator.hasNext());
+            Pair<Document, ScoreDoc> next = iterator.next();
+            assertEquals(scoreDoc, next.right);
+            assertEquals(new BytesRef(String.valueOf(scoreDoc.doc)), next.left.getBinaryValue(FIELD));
+        }
+        assertFalse(iterator.hasNext());
+        reader.close();
+        directory.close();
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testNextWithoutHits() throws IOException {
+        Directory directory = new RAMDirectory();
+        new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer())).close();
+        DirectoryReader reader = DirectoryReader.open(directory);
+        Set<String> fields = Collections.singleton(FIELD);
+        new DocumentIterator(new IndexSearcher(reader), new ScoreDoc[0], fields).next();
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2015, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.cassandra.lucene.service;
+
+import com.stratio.cassandra.lucene.IndexConfig;
+import com.stratio.cassandra.lucene.IndexException;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.ConcurrentMergeScheduler;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TieredMergePolicy;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.fail;
+
+/**
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class IndexingQueueTest {
+
+    private static final Double REFRESH_SECONDS = 0.1D;
+    private static final int WAIT_MILLISECONDS = (int) (REFRESH_SECONDS * 1000) * 2;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private LuceneIndex index() throws IOException {
+        Path path = Paths.get(folder.newFolder("directory" + UUID.randomUUID()).getPath());
+        return new LuceneIndex("ks",
+                               "cf",
+                               "idx",
+                               path,
+                               IndexConfig.DEFAULT_DIRECTORY_TYPE,
+                               IndexConfig.DEFAULT_MMAP_CHUNK_MB,
+                               IndexConfig.DEFAULT_RAM_BUFFER_MB,
+                               IndexConfig.DEFAULT_MAX_MERGE_MB,
+                               IndexConfig.DEFAULT_MAX_CACHED_MB,
+                               IndexConfig.DEFAULT_FILTER_CACHE_MB,
+                               new TieredMergePolicy(),
+                               new ConcurrentMergeScheduler(),
+                               true,
+                               REFRESH_SECONDS,
+                               REFRESH_SECONDS,
+                               new StandardAnalyzer());
+    }
+
+    private static Callable<Map<Term, Document>> documents(final String value) {
+        return new Callable<Map<Term, Document>>() {
+            @Override
+            public Map<Term, Document> call() {
+                Term term = new Term("field", value);
+                Document document = new Document();
+                document.add(new StringField("field", value, Field.Store.NO));
+                return Collections.singletonMap(term, document);
+            }
+        };
+    }
+
+    private static Callable<Void> delete(final LuceneIndex index, final String value) {
+        return new Callable<Void>() {
+            @Override
+            public Void call() throws IOException {
+                index.delete(new Term("field", value));
+                return null;
+            }
+        };
+    }
+
+    @Test
+    public void testUpsertAndDelete() throws IOException, InterruptedException {
+        LuceneIndex index = index();
+        IndexingQueue queue = new IndexingQueue(index, "ks.cf.idx", 4, 10, 100, 10);
+
+        for (int i = 0; i < 1000; i++) {
+            String value = String.valueOf(i % 100);
+            queue.upsert(value, documents(value));
+        }
+        queue.await();
+        index.commit();
+        Thread.sleep(WAIT_MILLISECONDS);
+        assertEquals(100, index.getNumDocs());
+
+        for (int i = 0; i < 50; i++) {
+            String value = String.valueOf(i);
+            queue.execute(value, delete(index, value));
+            queue.upsert(value, documents(value));
+            queue.execute(value, delete(index, value));
+        }
+        queue.await();
+        index.commit();
+        Thread.sleep(WAIT_MILLISECONDS);
+        assertEquals(50, index.getNumDocs());
+
+        queue.close();
+        index.delete();
+    }
+
+    @Test(expected = IndexException.class)
+    public void testSubmitAfterClose() throws IOException {
+        LuceneIndex index = index();
+        IndexingQueue queue = new IndexingQueue(index, "ks.cf.idx", 2, 10, 100, 0);
+        queue.close();
+        try {
+            queue.upsert("key", documents("value"));
+        } finally {
+            index.delete();
+        }
+    }
+
+    @Test
+    public void testCloseAppliesPending() throws IOException {
+        LuceneIndex index = index();
+        IndexingQueue queue = new IndexingQueue(index, "ks.cf.idx", 4, 10, 100, 1000);
+        for (int i = 0; i < 100; i++) {
+            String value = String.valueOf(i);
+            queue.upsert(value, documents(value));
+        }
+        queue.close();
+        queue.await(); // No-op after closing
+        index.commit();
+        index.refresh();
+        assertEquals(100, index.getNumDocs());
+        index.delete();
+    }
+
+    @Test
+    public void testFailuresReportedToAwait() throws IOException {
+        LuceneIndex index = index();
+        IndexingQueue queue = new IndexingQueue(index, "ks.cf.idx", 2, 10, 100, 0);
+        queue.upsert("key", new Callable<Map<Term, Document>>() {
+            @Override
+            public Map<Term, Document> call() {
+                throw new IllegalStateException("Failed");
+            }
+        });
+        queue.upsert("value", documents("value"));
+        try {
+            queue.await();
+            fail("Indexing failure should be reported");
+        } catch (IndexException e) {
+            assertEquals("Failed", e.getCause().getMessage());
+        }
+        queue.await(); // Reported only once
+        queue.close();
+        index.commit();
+        index.refresh();
+        assertEquals(1, index.getNumDocs());
+        index.delete();
+    }
+}
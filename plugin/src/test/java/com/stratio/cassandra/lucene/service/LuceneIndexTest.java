@@ -18,20 +18,35 @@ package com.stratio.cassandra.lucene.service;
 
 import com.google.common.collect.Sets;
 import com.stratio.cassandra.lucene.IndexConfig;
+import com.stratio.cassandra.lucene.IndexException;
+import org.apache.cassandra.utils.Pair;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.ConcurrentMergeScheduler;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortingMergePolicy;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TieredMergePolicy;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.FilterCollector;
+import org.apache.lucene.search.FilterLeafCollector;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LeafCollector;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.Weight;
 import org.apache.lucene.search.WildcardQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.util.BytesRef;
 import org.junit.Rule;
 import org.junit.Test;
@@ -40,11 +55,15 @@ import org.junit.rules.TemporaryFolder;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Map;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
 
 /**
  * @author Andres de la Pena {@literal <adelapena@stratio.com>}
@@ -66,9 +85,16 @@ public class LuceneIndexTest {
                                             "cf",
                                             "idx",
                                             path,
+                                            IndexConfig.DEFAULT_DIRECTORY_TYPE,
+                                            IndexConfig.DEFAULT_MMAP_CHUNK_MB,
                                             IndexConfig.DEFAULT_RAM_BUFFER_MB,
                                             IndexConfig.DEFAULT_MAX_MERGE_MB,
                                             IndexConfig.DEFAULT_MAX_CACHED_MB,
+                                            IndexConfig.DEFAULT_FILTER_CACHE_MB,
+                                            new TieredMergePolicy(),
+                                            new ConcurrentMergeScheduler(),
+                                            true,
+                                            REFRESH_SECONDS,
                                             REFRESH_SECONDS,
                                             new StandardAnalyzer());
         Sort sort = new Sort(new SortField("field", SortField.Type.STRING));
@@ -92,7 +118,7 @@ public class LuceneIndexTest {
 
         Query query = new WildcardQuery(new Term("field", "value*"));
         Set<String> fields = Sets.newHashSet("field");
-        Map<Document, ScoreDoc> results;
+        DocumentIterator results;
 
         // Search
         SearcherManager searcherManager = index.getSearcherManager();
@@ -101,21 +127,24 @@ public class LuceneIndexTest {
         try {
             results = index.search(searcher, query, null, null, 1, fields);
             assertEquals(1, results.size());
-            ScoreDoc last1 = results.values().iterator().next();
+            ScoreDoc last1 = results.next().right;
             results = index.search(searcher, query, null, last1, 1, fields);
             assertEquals(1, results.size());
 
             results = index.search(searcher, query, null, null, 1, fields);
             assertEquals(1, results.size());
-            ScoreDoc last2 = results.values().iterator().next();
+            ScoreDoc last2 = results.next().right;
             results = index.search(searcher, query, null, last2, 1, fields);
             assertEquals(1, results.size());
 
             results = index.search(searcher, query, sort, null, 1, fields);
             assertEquals(1, results.size());
-            ScoreDoc last3 = results.values().iterator().next();
+            Pair<Document, ScoreDoc> result3 = results.next();
+            assertEquals("value1", result3.left.getBinaryValue("field").utf8ToString());
+            ScoreDoc last3 = result3.right;
             results = index.search(searcher, query, sort, last3, 1, fields);
             assertEquals(1, results.size());
+            assertEquals("value2", results.next().left.getBinaryValue("field").utf8ToString());
         } finally {
             searcherManager.release(searcher);
         }
@@ -155,4 +184,195 @@ public class LuceneIndexTest {
         // Cleanup
         folder.delete();
     }
+
+    @Test
+    public void testWaitForGeneration() throws IOException {
+
+        Path path = Paths.get(folder.newFolder("directory" + UUID.randomUUID()).getPath());
+        LuceneIndex index = new LuceneIndex("ks",
+                                            "cf",
+                                            "idx",
+                                            path,
+                                            IndexConfig.DEFAULT_DIRECTORY_TYPE,
+                                            IndexConfig.DEFAULT_MMAP_CHUNK_MB,
+                                            IndexConfig.DEFAULT_RAM_BUFFER_MB,
+                                            IndexConfig.DEFAULT_MAX_MERGE_MB,
+                                            IndexConfig.DEFAULT_MAX_CACHED_MB,
+                                            IndexConfig.DEFAULT_FILTER_CACHE_MB,
+                                            new TieredMergePolicy(),
+                                            new ConcurrentMergeScheduler(),
+                                            true,
+                                            IndexConfig.DEFAULT_REFRESH_SECONDS,
+                                            REFRESH_SECONDS,
+                                            new StandardAnalyzer());
+        Term term = new Term("field", "value");
+        Document document = new Document();
+        document.add(new StringField("field", "value", Field.Store.NO));
+        long generation = index.upsert(term, document);
+
+        // Visible without committing nor waiting for the max refresh time
+        index.waitForGeneration(generation);
+        assertEquals(1, index.getNumDocs());
+
+        index.delete(term);
+        index.waitForWrites();
+        assertEquals(0, index.getNumDocs());
+
+        index.delete();
+        folder.delete();
+    }
+
+    @Test
+    public void testSortedSegments() throws IOException {
+
+        Path path = Paths.get(folder.newFolder("directory" + UUID.randomUUID()).getPath());
+        Sort sort = new Sort(new SortField("field", SortField.Type.STRING));
+        LuceneIndex index = new LuceneIndex("ks",
+                                            "cf",
+                                            "idx",
+                                            path,
+                                            IndexConfig.DEFAULT_DIRECTORY_TYPE,
+                                            IndexConfig.DEFAULT_MMAP_CHUNK_MB,
+                                            IndexConfig.DEFAULT_RAM_BUFFER_MB,
+                                            IndexConfig.DEFAULT_MAX_MERGE_MB,
+                                            IndexConfig.DEFAULT_MAX_CACHED_MB,
+                                            IndexConfig.DEFAULT_FILTER_CACHE_MB,
+                                            new SortingMergePolicy(new TieredMergePolicy(), sort),
+                                            new ConcurrentMergeScheduler(),
+                                            true,
+                                            REFRESH_SECONDS,
+                                            REFRESH_SECONDS,
+                                            new StandardAnalyzer());
+
+        // Several segments with documents in reverse order
+        for (int i = 9; i >= 0; i--) {
+            Document document = new Document();
+            document.add(new StringField("field", "value" + i, Field.Store.NO));
+            document.add(new SortedDocValuesField("field", new BytesRef("value" + i)));
+            index.upsert(new Term("field", "value" + i), document);
+            if (i % 3 == 0) {
+                index.commit();
+            }
+        }
+        index.forceMerge(1, true);
+        index.refresh();
+
+        SearcherManager searcherManager = index.getSearcherManager();
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            assertEquals(1, searcher.getIndexReader().leaves().size());
+            Query query = new WildcardQuery(new Term("field", "value*"));
+            assertEquals(10, searcher.count(query));
+
+            // Count the hits collected by the first search, which should stop once it has the requested ones
+            final AtomicInteger collected = new AtomicInteger();
+            IndexSearcher countingSearcher = new IndexSearcher(searcher.getIndexReader()) {
+                @Override
+                protected void search(List<LeafReaderContext> leaves, Weight weight, Collector collector)
+                throws IOException {
+                    super.search(leaves, weight, new FilterCollector(collector) {
+                        @Override
+                        public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+                            return new FilterLeafCollector(super.getLeafCollector(context)) {
+                                @Override
+                                public void collect(int doc) throws IOException {
+                                    collected.incrementAndGet();
+                                    super.collect(doc);
+                                }
+                            };
+                        }
+                    });
+                }
+            };
+
+            Set<String> fields = Sets.newHashSet("field");
+            DocumentIterator results = index.search(countingSearcher, query, sort, null, 3, fields);
+            assertEquals(3, results.size());
+            assertEquals("Expected early terminated search", 3, collected.get());
+            assertEquals("value0", results.next().left.getBinaryValue("field").utf8ToString());
+            assertEquals("value1", results.next().left.getBinaryValue("field").utf8ToString());
+            ScoreDoc last = results.next().right;
+            results = index.search(searcher, query, sort, last, 3, fields);
+            assertEquals(3, results.size());
+            assertEquals("value3", results.next().left.getBinaryValue("field").utf8ToString());
+        } finally {
+            searcherManager.release(searcher);
+        }
+
+        index.delete();
+        folder.delete();
+    }
+
+    @Test
+    public void testOldFormat() throws IOException {
+
+        // Write an index with an old format
+        Path path = Paths.get(folder.newFolder("directory" + UUID.randomUUID()).getPath());
+        Directory directory = FSDirectory.open(path);
+        IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()));
+        Document document = new Document();
+        document.add(new StringField("field", "value", Field.Store.NO));
+        writer.addDocument(document);
+        writer.setCommitData(Collections.singletonMap(LuceneIndex.FORMAT_KEY, "1"));
+        writer.close();
+
+        // Refused each time it is opened
+        for (int i = 0; i < 2; i++) {
+            try {
+                index(path);
+                fail("Old format index should be refused");
+            } catch (IndexException e) {
+                assertTrue(e.getMessage().contains("old format 1"));
+            }
+        }
+
+        // Left untouched
+        writer = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()));
+        assertEquals("1", writer.getCommitData().get(LuceneIndex.FORMAT_KEY));
+        assertEquals(1, writer.maxDoc());
+        writer.close();
+        directory.close();
+
+        folder.delete();
+    }
+
+    @Test
+    public void testCurrentFormat() throws IOException {
+
+        Path path = Paths.get(folder.newFolder("directory" + UUID.randomUUID()).getPath());
+        LuceneIndex index = index(path);
+        assertTrue(index.getFields().isEmpty());
+        Document document = new Document();
+        document.add(new StringField("field", "value", Field.Store.NO));
+        index.upsert(new Term("field", "value"), document);
+        index.commit();
+        index.close();
+
+        // Reopened without errors
+        index = index(path);
+        index.refresh();
+        assertEquals(1, index.getNumDocs());
+        assertEquals(Collections.singleton("field"), index.getFields());
+        index.delete();
+        folder.delete();
+    }
+
+    private LuceneIndex index(Path path) throws IOException {
+        return new LuceneIndex("ks",
+                               "cf",
+                               "idx",
+                               path,
+                               IndexConfig.DEFAULT_DIRECTORY_TYPE,
+                               IndexConfig.DEFAULT_MMAP_CHUNK_MB,
+                               IndexConfig.DEFAULT_RAM_BUFFER_MB,
+                               IndexConfig.DEFAULT_MAX_MERGE_MB,
+                               IndexConfig.DEFAULT_MAX_CACHED_MB,
+                               IndexConfig.DEFAULT_FILTER_CACHE_MB,
+                               new TieredMergePolicy(),
+                               new ConcurrentMergeScheduler(),
+                               true,
+                               IndexConfig.DEFAULT_REFRESH_SECONDS,
+                               IndexConfig.DEFAULT_REFRESH_MIN_SECONDS,
+                               new StandardAnalyzer());
+    }
 }
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2015, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.cassandra.lucene.service;
+
+import com.stratio.cassandra.lucene.IndexException;
+import com.stratio.cassandra.lucene.search.Search;
+import org.apache.cassandra.db.marshal.UTF8Type;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static com.stratio.cassandra.lucene.search.SearchBuilders.match;
+import static com.stratio.cassandra.lucene.search.SearchBuilders.search;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Class for testing {@link SearchCache}.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class SearchCacheTest {
+
+    @Test
+    public void testGet() {
+        SearchCache cache = new SearchCache("ks", "cf", "testGet", 10);
+        String json = search().query(match("field", "value")).toJson();
+        Search search1 = cache.get(UTF8Type.instance.decompose(json));
+        Search search2 = cache.get(UTF8Type.instance.decompose(json));
+        assertSame(search1, search2);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getSize());
+        cache.close();
+    }
+
+    @Test
+    public void testGetDoesNotRetainKey() {
+        SearchCache cache = new SearchCache("ks", "cf", "testGetDoesNotRetainKey", 10);
+        String json = search().query(match("field", "value")).toJson();
+        ByteBuffer bb = UTF8Type.instance.decompose(json);
+        Search search1 = cache.get(bb);
+        bb.put(0, (byte) ' ');
+        Search search2 = cache.get(UTF8Type.instance.decompose(json));
+        assertSame(search1, search2);
+        cache.close();
+    }
+
+    @Test(expected = IndexException.class)
+    public void testGetInvalid() {
+        SearchCache cache = new SearchCache("ks", "cf", "testGetInvalid", 10);
+        try {
+            cache.get(UTF8Type.instance.decompose("error"));
+        } finally {
+            assertEquals(0, cache.getSize());
+            cache.close();
+        }
+    }
+}
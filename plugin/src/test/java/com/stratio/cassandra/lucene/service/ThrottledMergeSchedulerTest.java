@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.cassandra.lucene.service;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LogDocMergePolicy;
+import org.apache.lucene.index.MergePolicy.OneMerge;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class ThrottledMergeSchedulerTest {
+
+    private static final double MAX_MB_PER_SEC = 20;
+
+    @Test
+    public void testBuild() {
+        ThrottledMergeScheduler scheduler = new ThrottledMergeScheduler(MAX_MB_PER_SEC);
+        assertEquals(MAX_MB_PER_SEC, scheduler.getMaxMBPerSec(), 0);
+        assertEquals(MAX_MB_PER_SEC, scheduler.getForceMergeMBPerSec(), 0);
+        assertTrue(scheduler.getIORateLimitMBPerSec() <= MAX_MB_PER_SEC);
+    }
+
+    @Test
+    public void testBuildAboveDefaultRate() {
+        ThrottledMergeScheduler scheduler = new ThrottledMergeScheduler(100000);
+        assertTrue(scheduler.getIORateLimitMBPerSec() < 100000);
+        assertEquals(100000, scheduler.getForceMergeMBPerSec(), 0);
+    }
+
+    @Test
+    public void testMergesAreClamped() throws IOException {
+
+        // Record the write rate of each merge when it starts and when it ends
+        final List<Double> rates = new ArrayList<>();
+        ThrottledMergeScheduler scheduler = new ThrottledMergeScheduler(MAX_MB_PER_SEC) {
+            @Override
+            protected void doMerge(IndexWriter writer, OneMerge merge) throws IOException {
+                record(merge);
+                super.doMerge(writer, merge);
+                record(merge);
+            }
+
+            private synchronized void record(OneMerge merge) {
+                rates.add(merge.rateLimiter.getMBPerSec());
+            }
+        };
+
+        // Write many small segments to trigger both natural and forced merges
+        LogDocMergePolicy mergePolicy = new LogDocMergePolicy();
+        mergePolicy.setMergeFactor(2);
+        IndexWriterConfig config = new IndexWriterConfig(new StandardAnalyzer());
+        config.setMergeScheduler(scheduler);
+        config.setMergePolicy(mergePolicy);
+        config.setMaxBufferedDocs(2);
+        Directory directory = new RAMDirectory();
+        IndexWriter writer = new IndexWriter(directory, config);
+        for (int i = 0; i < 100; i++) {
+            Document document = new Document();
+            document.add(new StringField("field", String.valueOf(i), Field.Store.NO));
+            writer.addDocument(document);
+        }
+        writer.forceMerge(1);
+        writer.close();
+        directory.close();
+
+        assertFalse("Expected merges", rates.isEmpty());
+        for (double rate : rates) {
+            assertTrue("Expected clamped rate but found " + rate, rate > 0 && rate <= MAX_MB_PER_SEC);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.cassandra.lucene.service;
+
+import org.apache.cassandra.dht.BigIntegerToken;
+import org.apache.cassandra.dht.ByteOrderedPartitioner;
+import org.apache.cassandra.dht.BytesToken;
+import org.apache.cassandra.dht.Murmur3Partitioner;
+import org.apache.cassandra.dht.OrderPreservingPartitioner;
+import org.apache.cassandra.dht.RandomPartitioner;
+import org.apache.cassandra.dht.StringToken;
+import org.apache.cassandra.dht.Token;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class TokenMapperOrderedTest {
+
+    private static final int NUM_TOKENS = 200;
+
+    private final Random random = new Random(0);
+
+    @Test
+    public void testSupports() {
+        assertTrue(TokenMapperOrdered.supports(new ByteOrderedPartitioner()));
+        assertTrue(TokenMapperOrdered.supports(new RandomPartitioner()));
+        assertTrue(TokenMapperOrdered.supports(new OrderPreservingPartitioner()));
+        assertFalse(TokenMapperOrdered.supports(new Murmur3Partitioner()));
+    }
+
+    @Test
+    public void testBytesTokens() {
+        List<Token> tokens = new ArrayList<>();
+        tokens.add(new ByteOrderedPartitioner().getMinimumToken());
+        for (int i = 0; i < NUM_TOKENS; i++) {
+            byte[] bytes = new byte[random.nextInt(4)];
+            random.nextBytes(bytes);
+            tokens.add(new BytesToken(bytes));
+        }
+        test(tokens);
+    }
+
+    @Test
+    public void testBigIntegerTokens() {
+        List<Token> tokens = new ArrayList<>();
+        tokens.add(new RandomPartitioner().getMinimumToken());
+        tokens.add(new BigIntegerToken(BigInteger.ZERO));
+        tokens.add(new BigIntegerToken(RandomPartitioner.MAXIMUM));
+        for (int i = 0; i < NUM_TOKENS; i++) {
+            tokens.add(new BigIntegerToken(new BigInteger(random.nextInt(128), random)));
+        }
+        test(tokens);
+    }
+
+    @Test
+    public void testStringTokens() {
+        List<Token> tokens = new ArrayList<>();
+        tokens.add(new OrderPreservingPartitioner().getMinimumToken());
+        tokens.add(new StringToken("\uFFFF"));
+        tokens.add(new StringToken("\uD800\uDC00"));
+        for (int i = 0; i < NUM_TOKENS; i++) {
+            char[] chars = new char[random.nextInt(4)];
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = (char) random.nextInt(Character.MAX_VALUE + 1);
+            }
+            tokens.add(new StringToken(new String(chars)));
+        }
+        test(tokens);
+    }
+
+    private static void test(List<Token> tokens) {
+        for (Token token1 : tokens) {
+            for (Token token2 : tokens) {
+                int expected = Integer.signum(token1.compareTo(token2));
+                int actual = Integer.signum(TokenMapperOrdered.bytesRef(token1)
+                                                              .compareTo(TokenMapperOrdered.bytesRef(token2)));
+                assertEquals(String.format("Comparing %s and %s", token1, token2), expected, actual);
+            }
+        }
+    }
+}
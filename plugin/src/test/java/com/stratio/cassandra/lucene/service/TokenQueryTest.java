@@ -0,0 +1,95 @@
+/*
+ * Copyright 2015, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.cassandra.lucene.service;
+
+import org.apache.cassandra.config.Config;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.BufferDecoratedKey;
+import org.apache.cassandra.dht.LongToken;
+import org.apache.cassandra.dht.Murmur3Partitioner;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LRUQueryCache;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryCachingPolicy;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class TokenQueryTest {
+
+    @BeforeClass
+    public static void setUpClass() {
+        Config.setClientMode(true);
+        DatabaseDescriptor.setPartitioner(new Murmur3Partitioner());
+    }
+
+    private static LongToken token(long i) {
+        return new LongToken(i);
+    }
+
+    @Test
+    public void testEquals() {
+        TokenMapperGeneric mapper = new TokenMapperGeneric();
+        Query query = new TokenQuery(token(1), token(3), true, false, mapper);
+        assertEquals(query, new TokenQuery(token(1), token(3), true, false, mapper));
+        assertEquals(query.hashCode(), new TokenQuery(token(1), token(3), true, false, mapper).hashCode());
+        assertFalse(query.equals(new TokenQuery(token(1), token(4), true, false, mapper)));
+        assertFalse(query.equals(new TokenQuery(token(0), token(3), true, false, mapper)));
+        assertFalse(query.equals(new TokenQuery(token(1), token(3), false, false, mapper)));
+        assertFalse(query.equals(new TokenQuery(token(1), token(3), true, true, mapper)));
+        assertFalse(query.equals(new TokenQuery(token(1), token(3), true, false, new TokenMapperGeneric())));
+    }
+
+    @Test
+    public void testCachedRanges() throws IOException {
+        TokenMapperGeneric mapper = new TokenMapperGeneric();
+        Directory directory = new RAMDirectory();
+        IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()));
+        for (long i = 0; i < 10; i++) {
+            Document document = new Document();
+            mapper.addFields(document, new BufferDecoratedKey(token(i), ByteBufferUtil.bytes(i)));
+            writer.addDocument(document);
+        }
+        writer.close();
+        DirectoryReader reader = DirectoryReader.open(directory);
+        IndexSearcher searcher = new IndexSearcher(reader);
+        searcher.setQueryCache(new LRUQueryCache(100, 1024 * 1024));
+        searcher.setQueryCachingPolicy(QueryCachingPolicy.ALWAYS_CACHE);
+        for (int i = 0; i < 2; i++) {
+            assertEquals(3, searcher.count(new TokenQuery(token(1), token(3), true, true, mapper)));
+            assertEquals(2, searcher.count(new TokenQuery(token(1), token(3), false, true, mapper)));
+            assertEquals(5, searcher.count(new TokenQuery(token(2), token(7), true, false, mapper)));
+        }
+        reader.close();
+        directory.close();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2015, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.cassandra.lucene.service;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class TokenRangesQueryTest {
+
+    private static final String FIELD = "field";
+
+    @Test
+    public void testCoalesce() {
+        TokenRangesQuery query = new TokenRangesQuery(FIELD, Arrays.asList(new long[]{20, 30},
+                                                                           new long[]{-10, 5},
+                                                                           new long[]{6, 8},
+                                                                           new long[]{25, 40},
+                                                                           new long[]{50, 49}));
+        assertEquals(2, query.size());
+        assertEquals("[-10 TO 8] [20 TO 40]", query.toString(FIELD));
+        assertFalse(query.contains(-11));
+        assertTrue(query.contains(-10));
+        assertTrue(query.contains(8));
+        assertFalse(query.contains(9));
+        assertFalse(query.contains(19));
+        assertTrue(query.contains(20));
+        assertTrue(query.contains(33));
+        assertTrue(query.contains(40));
+        assertFalse(query.contains(41));
+    }
+
+    @Test
+    public void testExtremes() {
+        TokenRangesQuery query = new TokenRangesQuery(FIELD, Arrays.asList(new long[]{Long.MIN_VALUE, 0},
+                                                                           new long[]{10, Long.MAX_VALUE},
+                                                                           new long[]{Long.MAX_VALUE, Long.MAX_VALUE}));
+        assertEquals(2, query.size());
+        assertTrue(query.contains(Long.MIN_VALUE));
+        assertFalse(query.contains(5));
+        assertTrue(query.contains(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testSearch() throws IOException {
+        Directory directory = new RAMDirectory();
+        IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()));
+        for (long token = -50; token < 50; token++) {
+            Document document = new Document();
+            document.add(new NumericDocValuesField(FIELD, token));
+            writer.addDocument(document);
+        }
+        writer.close();
+        DirectoryReader reader = DirectoryReader.open(directory);
+        IndexSearcher searcher = new IndexSearcher(reader);
+        assertEquals(33, searcher.count(new TokenRangesQuery(FIELD, Arrays.asList(new long[]{-60, -40},
+                                                                                  new long[]{0, 9},
+                                                                                  new long[]{10, 20},
+                                                                                  new long[]{49, 60}))));
+        assertEquals(0, searcher.count(new TokenRangesQuery(FIELD, Collections.<long[]>emptyList())));
+        reader.close();
+        directory.close();
+    }
+}
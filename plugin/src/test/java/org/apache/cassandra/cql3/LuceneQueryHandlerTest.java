@@ -0,0 +1,47 @@
+/*
+ * Copyright 2015, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.cql3;
+
+import org.apache.cassandra.config.CFMetaData;
+import org.apache.cassandra.cql3.statements.SelectStatement;
+import org.apache.cassandra.cql3.statements.Selection;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Tests the detection of the prepared statements which can't be Lucene searches in {@link LuceneQueryHandler}.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class LuceneQueryHandlerTest {
+
+    @Test
+    public void testNotIndexedStatement() throws Exception {
+        CFMetaData metadata = CFMetaData.compile("CREATE TABLE cf (k int PRIMARY KEY, v text)", "ks");
+        SelectStatement.Parameters parameters = new SelectStatement.Parameters(
+                Collections.<ColumnIdentifier.Raw, Boolean>emptyMap(), false, false, null, false);
+        Selection selection = Selection.wildcard(metadata, false, null);
+        SelectStatement select = new SelectStatement(metadata, 0, parameters, selection, null);
+        LuceneQueryHandler.invalidatePlans();
+        assertFalse(LuceneQueryHandler.mayBeLuceneSearch(select));
+        assertEquals(0, LuceneQueryHandler.plans.size());
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2015, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.service;
+
+import com.stratio.cassandra.lucene.service.RowKey;
+import com.stratio.cassandra.lucene.service.RowKeys;
+import org.apache.cassandra.config.CFMetaData;
+import org.apache.cassandra.config.Config;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.ArrayBackedSortedColumns;
+import org.apache.cassandra.db.BufferCell;
+import org.apache.cassandra.db.BufferDecoratedKey;
+import org.apache.cassandra.db.BufferDeletedCell;
+import org.apache.cassandra.db.BufferExpiringCell;
+import org.apache.cassandra.db.Cell;
+import org.apache.cassandra.db.ColumnFamily;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.Row;
+import org.apache.cassandra.db.RowPosition;
+import org.apache.cassandra.db.composites.CellName;
+import org.apache.cassandra.db.composites.CellNames;
+import org.apache.cassandra.db.marshal.UTF8Type;
+import org.apache.cassandra.dht.AbstractBounds;
+import org.apache.cassandra.dht.LongToken;
+import org.apache.cassandra.dht.Murmur3Partitioner;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.Pair;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the two phases top-k search and the grouping of token ranges by replicas of {@link LuceneStorageProxy}.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class LuceneStorageProxyTest {
+
+    private static final long NOW = System.currentTimeMillis();
+    private static final CFMetaData METADATA = CFMetaData.denseCFMetaData("ks", "cf", UTF8Type.instance);
+    private static final CellName SCORE = CellNames.simpleDense(ByteBufferUtil.bytes("score"));
+    private static final CellName VALUE = CellNames.simpleDense(ByteBufferUtil.bytes("value"));
+
+    @BeforeClass
+    public static void setUpClass() {
+        Config.setClientMode(true);
+        DatabaseDescriptor.setPartitioner(new Murmur3Partitioner());
+    }
+
+    @Test
+    public void testHits() throws Exception {
+        Source source = new Source(5);
+        Pair<List<Row>, RowKeys> result = LuceneStorageProxy.getTopRows(source, 3, null, NOW);
+        assertRows(result.left, 0, 1, 2);
+        assertSame(source.last, result.right);
+        assertEquals(1, source.searches);
+    }
+
+    @Test
+    public void testMisses() throws Exception {
+        Source source = new Source(6);
+        source.stored.remove(bytes(1));
+        Pair<List<Row>, RowKeys> result = LuceneStorageProxy.getTopRows(source, 3, null, NOW);
+        assertRows(result.left, 0, 2, 3);
+        assertSame(source.last, result.right);
+        assertEquals(2, source.searches);
+    }
+
+    @Test
+    public void testTombstones() throws Exception {
+        Source source = new Source(6);
+        source.stored.put(bytes(0), row(0, new BufferDeletedCell(VALUE, (int) (NOW / 1000), NOW)));
+        int expiration = (int) (NOW / 1000) - 10;
+        source.stored.put(bytes(2), row(2, new BufferExpiringCell(VALUE, bytes(2), NOW, 1, expiration)));
+        Pair<List<Row>, RowKeys> result = LuceneStorageProxy.getTopRows(source, 3, null, NOW);
+        assertRows(result.left, 1, 3, 4);
+        assertEquals(2, source.searches);
+    }
+
+    @Test
+    public void testExhausted() throws Exception {
+        Source source = new Source(4);
+        source.stored.remove(bytes(1));
+        source.stored.remove(bytes(3));
+        Pair<List<Row>, RowKeys> result = LuceneStorageProxy.getTopRows(source, 3, null, NOW);
+        assertRows(result.left, 0, 2);
+        assertEquals(3, source.searches);
+    }
+
+    @Test
+    public void testPaging() throws Exception {
+        Source source = new Source(6);
+        Pair<List<Row>, RowKeys> result = LuceneStorageProxy.getTopRows(source, 3, null, NOW);
+        assertRows(result.left, 0, 1, 2);
+        result = LuceneStorageProxy.getTopRows(source, 3, result.right, NOW);
+        assertRows(result.left, 3, 4, 5);
+    }
+
+    @Test
+    public void testGroupByReplicas() throws Exception {
+        List<AbstractBounds<RowPosition>> ranges = ranges(0, 10, 20, 30, 40, 50);
+        Map<AbstractBounds<RowPosition>, List<AbstractBounds<RowPosition>>> subRanges = new HashMap<>();
+        LuceneStorageProxy.ReplicasSource replicas = replicas("a", "b", "a", "a", "b");
+        List<AbstractBounds<RowPosition>> grouped = LuceneStorageProxy.groupByReplicas(replicas, ranges, subRanges);
+        assertEquals(Arrays.asList(range(0, 40), range(10, 50)), grouped);
+        assertEquals(Arrays.asList(range(0, 10), range(20, 40)), subRanges.get(grouped.get(0)));
+        assertEquals(Arrays.asList(range(10, 20), range(40, 50)), subRanges.get(grouped.get(1)));
+        assertEquals(2, subRanges.size());
+    }
+
+    @Test
+    public void testGroupByReplicasContiguous() throws Exception {
+        Map<AbstractBounds<RowPosition>, List<AbstractBounds<RowPosition>>> subRanges = new HashMap<>();
+        List<AbstractBounds<RowPosition>> ranges = ranges(0, 10, 20, 30);
+        LuceneStorageProxy.ReplicasSource replicas = replicas("a", "a", "a");
+        List<AbstractBounds<RowPosition>> grouped = LuceneStorageProxy.groupByReplicas(replicas, ranges, subRanges);
+        assertEquals(Collections.singletonList(range(0, 30)), grouped);
+        assertTrue("Contiguous ranges don't need token ranges filter", subRanges.isEmpty());
+    }
+
+    @Test
+    public void testGroupByReplicasWrapping() throws Exception {
+        List<AbstractBounds<RowPosition>> ranges = ranges(0, 10, Long.MIN_VALUE, -10);
+        Map<AbstractBounds<RowPosition>, List<AbstractBounds<RowPosition>>> subRanges = new HashMap<>();
+        LuceneStorageProxy.ReplicasSource replicas = replicas("a", "b", "a");
+        List<AbstractBounds<RowPosition>> grouped = LuceneStorageProxy.groupByReplicas(replicas, ranges, subRanges);
+        assertEquals(ranges, grouped);
+        assertTrue("Wrapping ranges can't be grouped", subRanges.isEmpty());
+    }
+
+    @Test
+    public void testRowKeyInGroupedRange() throws Exception {
+        Map<AbstractBounds<RowPosition>, List<AbstractBounds<RowPosition>>> subRanges = new HashMap<>();
+        List<AbstractBounds<RowPosition>> ranges = ranges(0, 10, 20, 30, 40);
+        LuceneStorageProxy.ReplicasSource replicas = replicas("a", "b", "a", "b");
+        List<AbstractBounds<RowPosition>> grouped = LuceneStorageProxy.groupByReplicas(replicas, ranges, subRanges);
+        RowKey rowKey15 = rowKey(15);
+        RowKey rowKey25 = rowKey(25);
+
+        // Each covering range contains both keys, but only one of them is inside its grouped ranges
+        RowKeys rowKeys = new RowKeys(Arrays.asList(rowKey15, rowKey25));
+        assertSame(rowKey25, LuceneStorageProxy.rowKey(grouped.get(0), subRanges, rowKeys));
+        rowKeys = new RowKeys(Arrays.asList(rowKey25, rowKey15));
+        assertSame(rowKey15, LuceneStorageProxy.rowKey(grouped.get(1), subRanges, rowKeys));
+
+        // Ungrouped ranges are used as they are
+        assertSame(rowKey15, LuceneStorageProxy.rowKey(range(10, 20), subRanges, rowKeys));
+        assertNull(LuceneStorageProxy.rowKey(range(30, 40), subRanges, rowKeys));
+        assertNull(LuceneStorageProxy.rowKey(grouped.get(0), subRanges, null));
+    }
+
+    /** Returns the contiguous ranges between the specified sorted tokens. */
+    private static List<AbstractBounds<RowPosition>> ranges(long... tokens) {
+        List<AbstractBounds<RowPosition>> ranges = new ArrayList<>();
+        for (int i = 0; i < tokens.length - 1; i++) {
+            ranges.add(range(tokens[i], tokens[i + 1]));
+        }
+        return ranges;
+    }
+
+    /** Returns the range of keys with tokens in {@code (left, right]}. */
+    private static AbstractBounds<RowPosition> range(long left, long right) {
+        RowPosition leftBound = new LongToken(left).maxKeyBound();
+        RowPosition rightBound = new LongToken(right).maxKeyBound();
+        return AbstractBounds.bounds(leftBound, false, rightBound, true);
+    }
+
+    /** Returns a {@link LuceneStorageProxy.ReplicasSource} with the specified replicas for each range, in order. */
+    private static LuceneStorageProxy.ReplicasSource replicas(final String... replicas) {
+        return new LuceneStorageProxy.ReplicasSource() {
+            private int position = 0;
+
+            @Override
+            public List<InetAddress> replicas(AbstractBounds<RowPosition> range) throws Exception {
+                byte[] address = new byte[]{127, 0, 0, (byte) replicas[position++].charAt(0)};
+                return Collections.singletonList(InetAddress.getByAddress(address));
+            }
+        };
+    }
+
+    private static RowKey rowKey(long token) {
+        return new RowKey(new BufferDecoratedKey(new LongToken(token), ByteBufferUtil.bytes(token)), null);
+    }
+
+    private static ByteBuffer bytes(int i) {
+        return ByteBufferUtil.bytes(i);
+    }
+
+    private static Row row(int i, Cell cell) {
+        DecoratedKey key = new BufferDecoratedKey(new LongToken((long) i), bytes(i));
+        ColumnFamily cf = ArrayBackedSortedColumns.factory.create(METADATA);
+        cf.addColumn(cell);
+        return new Row(key, cf);
+    }
+
+    private static void assertRows(List<Row> rows, int... expected) {
+        assertEquals(expected.length, rows.size());
+        for (int i = 0; i < expected.length; i++) {
+            Row row = rows.get(i);
+            assertEquals(bytes(expected[i]), row.key.getKey());
+            assertNotNull("Live value expected", row.cf.getColumn(VALUE));
+            assertNotNull("Score expected", row.cf.getColumn(SCORE));
+        }
+    }
+
+    /** {@link LuceneStorageProxy.TopRowsSource} over the rows with keys from zero, sorted by decreasing score. */
+    private static class Source implements LuceneStorageProxy.TopRowsSource {
+
+        private final List<Row> keyRows = new ArrayList<>();
+        private final Map<ByteBuffer, Row> stored = new HashMap<>();
+        private int position = 0;
+        private int searches = 0;
+        private RowKeys last = null;
+
+        Source(int numRows) {
+            for (int i = 0; i < numRows; i++) {
+                keyRows.add(row(i, new BufferCell(SCORE, ByteBufferUtil.bytes((float) (numRows - i)), NOW)));
+                stored.put(bytes(i), row(i, new BufferCell(VALUE, bytes(i), NOW)));
+            }
+        }
+
+        @Override
+        public Pair<List<Row>, RowKeys> keys(int limit, RowKeys rowKeys) {
+            assertSame("Searches must continue from the previous paging state", last, rowKeys);
+            searches++;
+            int end = Math.min(position + limit, keyRows.size());
+            List<Row> rows = new ArrayList<>(keyRows.subList(position, end));
+            position = end;
+            last = new RowKeys();
+            return Pair.create(rows, last);
+        }
+
+        @Override
+        public List<Row> rows(List<Row> keyRows) {
+            List<Row> rows = new ArrayList<>();
+            for (Row keyRow : keyRows) {
+                Row row = stored.get(keyRow.key.getKey());
+                if (row != null) {
+                    rows.add(row);
+                }
+            }
+            return rows;
+        }
+
+        @Override
+        public ByteBuffer key(Row row) {
+            return row.key.getKey();
+        }
+    }
+}